@@ -8,16 +8,74 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.WeakHashMap;
 
 public class AStarPathfinding {
 
     private static final String TAG = "AStarPathfinding";
     public static final int GRID_SIZE = 32;
     // Directions: N, NE, E, SE, S, SW, W, NW
-    public static final int[][] DIRECTIONS = {
-            {0, -1}, {1, -1}, {1, 0}, {1, 1},
-            {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}
-    };
+    public static final int[][] DIRECTIONS = FloorModel.DIRECTIONS;
+
+    // Search engines available to aStar().
+    // CLASSIC: Node objects keyed by "x,y" strings in a HashMap and a PriorityQueue.
+    // INDEXED: flat arrays indexed by y * width + x with an indexed binary heap.
+    // JPS: Jump Point Search on the same flat arrays; returns optimal 8-connected routes.
+    // HPA: hierarchical search over precomputed cluster entrances; near-optimal, for large floors.
+    // ALT: indexed search guided by precomputed landmark distances; optimal, far fewer expansions.
+    public enum Engine {
+        CLASSIC,
+        INDEXED,
+        JPS,
+        HPA,
+        ALT
+    }
+
+    private Engine engine = Engine.INDEXED;
+    // When set, aStar() returns only the turning points of each route (see PathSmoother).
+    private boolean anyAngle = false;
+    private final IndexedAStar indexedAStar = new IndexedAStar(this);
+    private final JumpPointSearch jumpPointSearch = new JumpPointSearch(this);
+    private MultiFloorSearch multiFloorSearch;
+    private HierarchicalPathfinder hierarchy;
+    // Landmark tables per floor model. Tables do not reference their model, so an entry
+    // goes away once its model is no longer used elsewhere.
+    private final Map<FloorModel, LandmarkTable> landmarks = new WeakHashMap<>();
+    // Compiled form of the last int[][] grid routed with ALT.
+    private int[][] landmarkGrid;
+    private FloorModel landmarkModel;
+    // Expanded grid of the last model routed with JPS or HPA, kept until the model changes
+    // so the grid, and the hierarchy keyed on it, are not rebuilt for every query.
+    private FloorModel expandedModel;
+    private int expandedModCount;
+    private int[][] expandedGrid;
+    private final RouteCache routeCache = new RouteCache();
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public boolean isAnyAngle() {
+        return anyAngle;
+    }
+
+    public void setAnyAngle(boolean anyAngle) {
+        this.anyAngle = anyAngle;
+    }
+
+    // LRU cache consulted by findPathAcrossFloors(); exposes hit and miss counters.
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    // Drops every cached route. Call when floor maps or bin positions change.
+    public void invalidateRoutes() {
+        routeCache.invalidate();
+    }
 
     public boolean isInBounds(int[][] grid, int x, int y) {
         return x >= 0 && y >= 0 && y < grid.length && x < grid[0].length;
@@ -29,12 +87,99 @@ public class AStarPathfinding {
         return cell == 0 || cell == 2;
     }
 
+    public boolean isWalkable(FloorModel model, int x, int y) {
+        return model.isWalkable(x, y);
+    }
+
     public double manhattanDistance(int x1, int y1, int x2, int y2) {
         return Math.abs(x1 - x2) + Math.abs(y1 - y2);
     }
 
-    // Standard A* algorithm for a single floor.
+    // Exact step count on an open 8-connected grid where diagonals also cost 1.
+    public double chebyshevDistance(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+
+    // Single-floor A* using the selected engine, string-pulled when any-angle mode is on.
     public AStarResult aStar(int[][] grid, int startX, int startY, int goalX, int goalY) {
+        AStarResult result;
+        if (engine == Engine.INDEXED) {
+            result = indexedAStar.search(grid, startX, startY, goalX, goalY);
+        } else if (engine == Engine.JPS) {
+            result = jumpPointSearch.search(grid, startX, startY, goalX, goalY);
+        } else if (engine == Engine.HPA) {
+            result = getHierarchy(grid).findPath(startX, startY, goalX, goalY);
+        } else if (engine == Engine.ALT) {
+            if (landmarkGrid != grid) {
+                landmarkModel = FloorModel.compile(0, grid);
+                landmarkGrid = grid;
+            }
+            return aStar(landmarkModel, startX, startY, goalX, goalY);
+        } else {
+            result = classicAStar(grid, startX, startY, goalX, goalY);
+        }
+        if (anyAngle && result.path != null) {
+            result.path = PathSmoother.smooth(grid, result.path);
+        }
+        return result;
+    }
+
+    // O(1) reachability check on one floor from the precomputed component labels.
+    public boolean isReachable(FloorModel model, int startX, int startY, int goalX, int goalY) {
+        return model.isWalkable(startX, startY) && model.isWalkable(goalX, goalY)
+                && model.getComponent(startX, startY) == model.getComponent(goalX, goalY);
+    }
+
+    // Single-floor A* over a compiled floor. CLASSIC, INDEXED and ALT run the indexed search on
+    // the packed walkability bits; JPS and HPA work on grids, so the model is expanded for them
+    // once per edit of the model.
+    public AStarResult aStar(FloorModel model, int startX, int startY, int goalX, int goalY) {
+        if (!isReachable(model, startX, startY, goalX, goalY)) {
+            return new AStarResult(null, 0);
+        }
+        if (engine == Engine.JPS || engine == Engine.HPA) {
+            return aStar(getExpandedGrid(model), startX, startY, goalX, goalY);
+        }
+        AStarResult result = engine == Engine.ALT
+                ? indexedAStar.search(model, getLandmarks(model), startX, startY, goalX, goalY)
+                : indexedAStar.search(model, startX, startY, goalX, goalY);
+        if (anyAngle && result.path != null) {
+            result.path = PathSmoother.smooth(model, result.path);
+        }
+        return result;
+    }
+
+    private int[][] getExpandedGrid(FloorModel model) {
+        if (expandedModel != model || expandedModCount != model.getModCount()) {
+            expandedGrid = model.toGrid();
+            expandedModel = model;
+            expandedModCount = model.getModCount();
+        }
+        return expandedGrid;
+    }
+
+    // Landmark distances for model, built on first use and rebuilt once the floor changes.
+    // Call at load time to keep the BFS passes off the first route request.
+    public LandmarkTable getLandmarks(FloorModel model) {
+        LandmarkTable table = landmarks.get(model);
+        if (table == null || !table.isCurrent(model)) {
+            table = LandmarkTable.build(model, LandmarkTable.DEFAULT_LANDMARKS);
+            landmarks.put(model, table);
+        }
+        return table;
+    }
+
+    // Cluster abstraction of grid, built on first use and kept while the same grid is queried.
+    // Use HierarchicalPathfinder.updateCell() to edit the grid so only nearby clusters are rebuilt.
+    public HierarchicalPathfinder getHierarchy(int[][] grid) {
+        if (hierarchy == null || hierarchy.getGrid() != grid) {
+            hierarchy = new HierarchicalPathfinder(this, grid, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+        }
+        return hierarchy;
+    }
+
+    // Standard A* algorithm for a single floor.
+    public AStarResult classicAStar(int[][] grid, int startX, int startY, int goalX, int goalY) {
         if (!isInBounds(grid, startX, startY) || !isInBounds(grid, goalX, goalY))
             return new AStarResult(null, 0);
         if (!isWalkable(grid, startX, startY) || !isWalkable(grid, goalX, goalY))
@@ -110,6 +255,11 @@ public class AStarPathfinding {
         return stairs;
     }
 
+    // Stair positions precomputed when the floor was compiled.
+    public List<int[]> getStairs(FloorModel model) {
+        return model.getStairs();
+    }
+
     // Finds the nearest stair in the provided list from (x, y)
     public int[] findNearestStair(int floor, int[][] grid, int x, int y, List<int[]> stairsList) {
         if (stairsList == null || stairsList.isEmpty()) return null;
@@ -177,6 +327,45 @@ public class AStarPathfinding {
         return new PathResult(totalPath, totalExplored, stairNode, stairNode);
     }
 
+    // Multi-floor pathfinding as one search over (floor, x, y): every stair shared by two
+    // adjacent floors is an edge, so the route may use any stair and cross several floors.
+    // Results are served from the route cache when the same query was answered before.
+    public PathResult findPathAcrossFloors(
+            MultiFloorGraph graph,
+            int startFloor, int startX, int startY,
+            int goalFloor, int goalX, int goalY) {
+        if (multiFloorSearch == null || multiFloorSearch.getGraph() != graph) {
+            multiFloorSearch = new MultiFloorSearch(graph);
+            routeCache.invalidate();
+        }
+        PathResult cached = routeCache.get(startFloor, startX, startY, goalFloor, goalX, goalY);
+        if (cached != null) {
+            return cached;
+        }
+        int version = routeCache.getVersion();
+        PathResult result = multiFloorSearch.findPath(startFloor, startX, startY, goalFloor, goalX, goalY);
+        routeCache.put(startFloor, startX, startY, goalFloor, goalX, goalY, result, version);
+        return result;
+    }
+
+    // Route to whichever goal is cheapest to reach, in a single search. Each goal is
+    // {floor, x, y}; the goal that was reached is the last node of the returned path.
+    public PathResult findPathToNearestGoal(
+            MultiFloorGraph graph,
+            int startFloor, int startX, int startY,
+            List<int[]> goals) {
+        if (multiFloorSearch == null || multiFloorSearch.getGraph() != graph) {
+            multiFloorSearch = new MultiFloorSearch(graph);
+            routeCache.invalidate();
+        }
+        int[] goalNodes = new int[goals.size()];
+        for (int i = 0; i < goalNodes.length; i++) {
+            int[] goal = goals.get(i);
+            goalNodes[i] = graph.nodeId(goal[0], goal[1], goal[2]);
+        }
+        return multiFloorSearch.findPathToNearest(startFloor, startX, startY, goalNodes);
+    }
+
     // Node class
     public static class Node implements Comparable<Node> {
         int x, y, floor;
@@ -228,6 +417,8 @@ public class AStarPathfinding {
         public int exploredCount;
         public Node startStair;
         public Node endStair;
+        // Consecutive runs of path on one floor, in travel order (set by findPathAcrossFloors).
+        public List<List<Node>> segments;
 
         public PathResult(List<Node> path, int exploredCount, Node startStair, Node endStair) {
             this.path = path;
@@ -0,0 +1,112 @@
+package com.vern.vernaduwaste;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Answers many route queries over one MultiFloorGraph in parallel, e.g. for coverage
+// reports of which rooms are within N steps of a bin. Queries are split across a
+// fork-join pool. Each leaf task borrows a MultiFloorSearch from a pool owned by the router,
+// so scratch buffers are never shared, are reused across queries and batches, and go away
+// with the router rather than staying on the pool's threads. Results come back in input order.
+// The graph must not be modified while a batch is running.
+public class BatchRouter {
+
+    // Below this many queries a task runs them itself instead of forking.
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    // One (start, goal) pair of a batch.
+    public static class RouteQuery {
+        public final int startFloor, startX, startY;
+        public final int goalFloor, goalX, goalY;
+
+        public RouteQuery(int startFloor, int startX, int startY, int goalFloor, int goalX, int goalY) {
+            this.startFloor = startFloor;
+            this.startX = startX;
+            this.startY = startY;
+            this.goalFloor = goalFloor;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+    }
+
+    private final MultiFloorGraph graph;
+    private final ForkJoinPool pool;
+    // Idle searches, not tied to any thread. It grows to the most leaf tasks that ever ran at
+    // once: at most the pool's parallelism, plus the invoking thread when it helps out.
+    private final ConcurrentLinkedQueue<MultiFloorSearch> searches = new ConcurrentLinkedQueue<>();
+
+    public BatchRouter(MultiFloorGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public BatchRouter(MultiFloorGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    public MultiFloorGraph getGraph() {
+        return graph;
+    }
+
+    // Full routes, split into floor segments, as findPathAcrossFloors returns them.
+    public List<AStarPathfinding.PathResult> routeAll(List<RouteQuery> queries) {
+        AStarPathfinding.PathResult[] results = new AStarPathfinding.PathResult[queries.size()];
+        pool.invoke(new BatchTask(queries, 0, queries.size(), results, null));
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    // Route costs only, Float.POSITIVE_INFINITY where the goal is unreachable. Skips
+    // building the paths, which dominates allocation for large distance tables.
+    public float[] costAll(List<RouteQuery> queries) {
+        float[] costs = new float[queries.size()];
+        pool.invoke(new BatchTask(queries, 0, queries.size(), null, costs));
+        return costs;
+    }
+
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<RouteQuery> queries;
+        private final int from;
+        private final int to;
+        private final AStarPathfinding.PathResult[] results;
+        private final float[] costs;
+
+        BatchTask(List<RouteQuery> queries, int from, int to,
+                  AStarPathfinding.PathResult[] results, float[] costs) {
+            this.queries = queries;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.costs = costs;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                MultiFloorSearch search = searches.poll();
+                if (search == null) search = new MultiFloorSearch(graph);
+                try {
+                    for (int i = from; i < to; i++) {
+                        RouteQuery q = queries.get(i);
+                        if (results != null) {
+                            results[i] = search.findPath(q.startFloor, q.startX, q.startY, q.goalFloor, q.goalX, q.goalY);
+                        } else {
+                            costs[i] = search.findPathCost(q.startFloor, q.startX, q.startY, q.goalFloor, q.goalX, q.goalY);
+                        }
+                    }
+                } finally {
+                    searches.offer(search);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(queries, from, middle, results, costs),
+                    new BatchTask(queries, middle, to, results, costs));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.vern.vernaduwaste;
+
+import java.util.Arrays;
+
+// Exact distance from every node of a MultiFloorGraph to one waste bin, computed with a
+// single reverse Dijkstra from the bin. Moves are symmetric, so distance-to-bin equals
+// distance-from-bin. Once built, the route from any cell is a greedy descent over
+// neighbours and costs O(path length) with no search at all. The field belongs to the
+// floor states it was built from; once any floor changes it has to be rebuilt.
+public class BinDistanceField {
+
+    private final MultiFloorGraph graph;
+    private final int goal;
+    private final float[] distance;
+    // Mod count of each of the graph's floors, in getFloors() order, when the field was built.
+    private final int[] modCounts;
+
+    private BinDistanceField(MultiFloorGraph graph, int goal, float[] distance, int[] modCounts) {
+        this.graph = graph;
+        this.goal = goal;
+        this.distance = distance;
+        this.modCounts = modCounts;
+    }
+
+    // Builds the field for the bin at (floor, x, y); returns null when the cell is not walkable.
+    public static BinDistanceField build(MultiFloorGraph graph, int floor, int x, int y) {
+        int goal = graph.nodeId(floor, x, y);
+        if (goal < 0 || !graph.isWalkable(goal)) return null;
+        int[] floors = graph.getFloors();
+        int[] modCounts = new int[floors.length];
+        for (int i = 0; i < floors.length; i++) {
+            modCounts[i] = graph.getModel(floors[i]).getModCount();
+        }
+        float[] distance = new float[graph.getNodeCount()];
+        Arrays.fill(distance, Float.POSITIVE_INFINITY);
+        IndexedMinHeap queue = new IndexedMinHeap(graph.getNodeCount());
+        int[] neighbors = new int[MultiFloorGraph.MAX_NEIGHBORS];
+        distance[goal] = 0;
+        queue.push(goal, 0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            int count = graph.neighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                float d = distance[current] + graph.edgeCost(neighbor, current);
+                if (d < distance[neighbor]) {
+                    distance[neighbor] = d;
+                    queue.push(neighbor, d);
+                }
+            }
+        }
+        return new BinDistanceField(graph, goal, distance, modCounts);
+    }
+
+    public MultiFloorGraph getGraph() {
+        return graph;
+    }
+
+    public int getGoalNode() {
+        return goal;
+    }
+
+    // False once a floor of the graph has changed since the field was built.
+    public boolean isCurrent() {
+        int[] floors = graph.getFloors();
+        for (int i = 0; i < floors.length; i++) {
+            if (graph.getModel(floors[i]).getModCount() != modCounts[i]) return false;
+        }
+        return true;
+    }
+
+    // Distance in steps from (floor, x, y) to the bin, or infinity when it cannot be reached.
+    public float distanceFrom(int floor, int x, int y) {
+        int node = graph.nodeId(floor, x, y);
+        return node < 0 ? Float.POSITIVE_INFINITY : distance[node];
+    }
+
+    // Follows the steepest descent from (floor, x, y) down to the bin. Returns a PathResult
+    // with a null path when the bin is unreachable from there, or when the descent gets
+    // stuck because a floor changed after the field was built (see isCurrent()).
+    public AStarPathfinding.PathResult route(int floor, int x, int y) {
+        int node = graph.nodeId(floor, x, y);
+        if (node < 0 || distance[node] == Float.POSITIVE_INFINITY) {
+            return new AStarPathfinding.PathResult(null, 0, null, null);
+        }
+        // Each step lowers the distance by at least the smallest edge cost.
+        int[] route = new int[(int) (distance[node] / Math.min(1f, MultiFloorGraph.STAIR_COST)) + 1];
+        int[] neighbors = new int[MultiFloorGraph.MAX_NEIGHBORS];
+        int length = 0;
+        route[length++] = node;
+        while (node != goal) {
+            int best = -1;
+            float bestDistance = distance[node];
+            int count = graph.neighbors(node, neighbors);
+            for (int i = 0; i < count; i++) {
+                float d = distance[neighbors[i]] + graph.edgeCost(node, neighbors[i]);
+                if (d <= bestDistance && distance[neighbors[i]] < distance[node]) {
+                    bestDistance = d;
+                    best = neighbors[i];
+                }
+            }
+            if (best < 0) {
+                return new AStarPathfinding.PathResult(null, 0, null, null);
+            }
+            node = best;
+            route[length++] = node;
+        }
+        return MultiFloorSearch.toPathResult(graph, route, length, null, length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.vern.vernaduwaste;
+
+import java.util.Arrays;
+
+// A floor's cells covered by same-type rectangles: each row is split into maximal runs of
+// one type, and a run continues the rectangle above it when that rectangle spans exactly the
+// same columns with the same type. Corridors and room blocks become a handful of rectangles
+// instead of one per cell. Rectangles are stored packed, five ints each, in the row order of
+// the input. Kept free of Android types so the benchmark module can run it.
+public final class CellRectangles {
+
+    private static final int FIELDS = 5; // x, y, width, height, type
+
+    private final int[] rects;
+    private final int count;
+
+    private CellRectangles(int[] rects, int count) {
+        this.rects = rects;
+        this.count = count;
+    }
+
+    // types holds width * height cell types, row by row.
+    public static CellRectangles build(byte[] types, int width, int height) {
+        int[] rects = new int[16 * FIELDS];
+        int count = 0;
+        // Rectangle whose bottom row run starts at column x in the previous row, or -1.
+        int[] above = new int[width];
+        int[] current = new int[width];
+        Arrays.fill(above, -1);
+        for (int y = 0; y < height; y++) {
+            Arrays.fill(current, -1);
+            int x = 0;
+            while (x < width) {
+                int type = types[y * width + x];
+                int end = x + 1;
+                while (end < width && types[y * width + end] == type) end++;
+                int open = above[x];
+                if (open >= 0 && rects[open * FIELDS + 2] == end - x && rects[open * FIELDS + 4] == type) {
+                    rects[open * FIELDS + 3]++;
+                    current[x] = open;
+                } else {
+                    if ((count + 1) * FIELDS > rects.length) rects = Arrays.copyOf(rects, rects.length * 2);
+                    int base = count * FIELDS;
+                    rects[base] = x;
+                    rects[base + 1] = y;
+                    rects[base + 2] = end - x;
+                    rects[base + 3] = 1;
+                    rects[base + 4] = type;
+                    current[x] = count++;
+                }
+                x = end;
+            }
+            int[] swap = above;
+            above = current;
+            current = swap;
+        }
+        return new CellRectangles(Arrays.copyOf(rects, count * FIELDS), count);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return rects[i * FIELDS];
+    }
+
+    public int getY(int i) {
+        return rects[i * FIELDS + 1];
+    }
+
+    public int getWidth(int i) {
+        return rects[i * FIELDS + 2];
+    }
+
+    public int getHeight(int i) {
+        return rects[i * FIELDS + 3];
+    }
+
+    public int getType(int i) {
+        return rects[i * FIELDS + 4];
+    }
+}
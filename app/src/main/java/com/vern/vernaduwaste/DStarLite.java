@@ -0,0 +1,227 @@
+package com.vern.vernaduwaste;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+// D* Lite incremental planner over a MultiFloorGraph, anchored at the goal bin. The search
+// runs backwards from the goal, so when the device moves only the key modifier changes
+// and the next replan reuses almost all of the previous work. Walkability changes are
+// applied with setCell() and repair only the affected part of the search tree.
+public class DStarLite {
+
+    private static final String TAG = "DStarLite";
+    private static final float INF = Float.POSITIVE_INFINITY;
+
+    private final MultiFloorGraph graph;
+    private final int goal;
+    private final float[] g;
+    private final float[] rhs;
+    private final IndexedMinHeap openSet;
+    private final int[] neighborBuffer = new int[MultiFloorGraph.MAX_NEIGHBORS];
+    private final int[] predecessorBuffer = new int[MultiFloorGraph.MAX_NEIGHBORS];
+    private final int[] changeBuffer = new int[2 * MultiFloorGraph.MAX_NEIGHBORS + 1];
+    private int start;
+    private int lastStart;
+    private float keyModifier = 0;
+    private int lastExpanded = 0;
+
+    public DStarLite(MultiFloorGraph graph, int goalFloor, int goalX, int goalY) {
+        this.graph = graph;
+        this.goal = graph.nodeId(goalFloor, goalX, goalY);
+        int nodeCount = graph.getNodeCount();
+        g = new float[nodeCount];
+        rhs = new float[nodeCount];
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        openSet = new IndexedMinHeap(nodeCount);
+        start = -1;
+        lastStart = -1;
+        if (goal >= 0 && graph.isWalkable(goal)) {
+            rhs[goal] = 0;
+            openSet.push(goal, 0, 0);
+        }
+    }
+
+    public MultiFloorGraph getGraph() {
+        return graph;
+    }
+
+    public int getGoalNode() {
+        return goal;
+    }
+
+    // Moves the start to (floor, x, y), replans and returns the updated route.
+    public AStarPathfinding.PathResult moveStart(int floor, int x, int y) {
+        int node = graph.nodeId(floor, x, y);
+        if (node < 0 || goal < 0) {
+            return new AStarPathfinding.PathResult(null, 0, null, null);
+        }
+        if (lastStart >= 0 && node != lastStart) {
+            keyModifier += heuristic(lastStart, node);
+        }
+        start = node;
+        lastStart = node;
+        if (!graph.isReachable(node, goal)) {
+            return new AStarPathfinding.PathResult(null, 0, null, null);
+        }
+        // Keys queued against the old start are re-keyed lazily as they surface.
+        computeShortestPath();
+        return extractPath();
+    }
+
+    // Changes a cell type and repairs the search around it. The floor model is shared with
+    // the graph, so the change is visible to every other user of that graph too.
+    public AStarPathfinding.PathResult setCell(int floor, int x, int y, int cellType) {
+        FloorModel model = graph.getModel(floor);
+        int node = graph.nodeId(floor, x, y);
+        if (model == null || node < 0 || model.getType(x, y) == cellType) return extractPath();
+        int count = 0;
+        changeBuffer[count++] = node;
+        count = appendNeighbors(node, count);
+        model.setCell(x, y, cellType);
+        count = appendNeighbors(node, count);
+        if (start >= 0) {
+            keyModifier += heuristic(lastStart, start);
+            lastStart = start;
+        }
+        for (int i = 0; i < count; i++) {
+            int u = changeBuffer[i];
+            if (u != goal) {
+                rhs[u] = bestSuccessorCost(u);
+            } else {
+                rhs[u] = graph.isWalkable(goal) ? 0 : INF;
+            }
+            updateVertex(u);
+        }
+        if (start < 0) return new AStarPathfinding.PathResult(null, 0, null, null);
+        computeShortestPath();
+        return extractPath();
+    }
+
+    private int appendNeighbors(int node, int count) {
+        int n = graph.neighbors(node, neighborBuffer);
+        for (int i = 0; i < n; i++) {
+            int neighbor = neighborBuffer[i];
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = changeBuffer[j] == neighbor;
+            }
+            if (!seen) changeBuffer[count++] = neighbor;
+        }
+        return count;
+    }
+
+    private float heuristic(int from, int to) {
+        return graph.heuristic(from, graph.floorOf(to), graph.xOf(to), graph.yOf(to));
+    }
+
+    private float cost(int from, int to) {
+        return graph.isWalkable(from) && graph.isWalkable(to) ? graph.edgeCost(from, to) : INF;
+    }
+
+    private float bestSuccessorCost(int u) {
+        if (!graph.isWalkable(u)) return INF;
+        float best = INF;
+        int count = graph.neighbors(u, neighborBuffer);
+        for (int i = 0; i < count; i++) {
+            int s = neighborBuffer[i];
+            best = Math.min(best, cost(u, s) + g[s]);
+        }
+        return best;
+    }
+
+    private float key1(int u) {
+        float h = start >= 0 ? heuristic(start, u) : 0;
+        return Math.min(g[u], rhs[u]) + h + keyModifier;
+    }
+
+    private float key2(int u) {
+        return Math.min(g[u], rhs[u]);
+    }
+
+    private void updateVertex(int u) {
+        if (g[u] != rhs[u]) {
+            openSet.push(u, key1(u), key2(u));
+        } else {
+            openSet.remove(u);
+        }
+    }
+
+    private boolean topKeyLessThanStart() {
+        float startKey1 = key1(start);
+        float topKey1 = openSet.peekKey();
+        return topKey1 < startKey1 || (topKey1 == startKey1 && openSet.peekSecondaryKey() < key2(start));
+    }
+
+    private void computeShortestPath() {
+        int expanded = 0;
+        int[] preds = predecessorBuffer;
+        while (!openSet.isEmpty() && (topKeyLessThanStart() || rhs[start] > g[start])) {
+            int u = openSet.peek();
+            float oldKey1 = openSet.peekKey();
+            float oldKey2 = openSet.peekSecondaryKey();
+            float newKey1 = key1(u);
+            float newKey2 = key2(u);
+            if (oldKey1 < newKey1 || (oldKey1 == newKey1 && oldKey2 < newKey2)) {
+                openSet.push(u, newKey1, newKey2);
+                continue;
+            }
+            expanded++;
+            int count = graph.neighbors(u, preds);
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                openSet.remove(u);
+                for (int i = 0; i < count; i++) {
+                    int s = preds[i];
+                    if (s != goal) rhs[s] = Math.min(rhs[s], cost(s, u) + g[u]);
+                    updateVertex(s);
+                }
+            } else {
+                float oldG = g[u];
+                g[u] = INF;
+                for (int i = 0; i < count; i++) {
+                    int s = preds[i];
+                    if (s != goal && rhs[s] == cost(s, u) + oldG) rhs[s] = bestSuccessorCost(s);
+                    updateVertex(s);
+                }
+                if (u != goal) rhs[u] = bestSuccessorCost(u);
+                updateVertex(u);
+            }
+        }
+        lastExpanded = expanded;
+        Log.d(TAG, "Replanned with " + expanded + " expansions.");
+    }
+
+    // Greedy walk down g from the start to the goal. The start itself may be left
+    // overconsistent by the search, so its rhs is the distance to trust.
+    private AStarPathfinding.PathResult extractPath() {
+        if (start < 0 || rhs[start] == INF) {
+            return new AStarPathfinding.PathResult(null, lastExpanded, null, null);
+        }
+        int[] route = new int[(int) (rhs[start] / Math.min(1f, MultiFloorGraph.STAIR_COST)) + 1];
+        int length = 0;
+        int node = start;
+        route[length++] = node;
+        while (node != goal && length < route.length) {
+            int best = -1;
+            float bestCost = INF;
+            int count = graph.neighbors(node, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int s = neighborBuffer[i];
+                float c = cost(node, s) + g[s];
+                if (c < bestCost) {
+                    bestCost = c;
+                    best = s;
+                }
+            }
+            if (best < 0) break;
+            node = best;
+            route[length++] = node;
+        }
+        if (node != goal) {
+            return new AStarPathfinding.PathResult(null, lastExpanded, null, null);
+        }
+        return MultiFloorSearch.toPathResult(graph, route, length, null, lastExpanded);
+    }
+}
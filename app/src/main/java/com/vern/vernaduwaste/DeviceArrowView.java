@@ -0,0 +1,64 @@
+package com.vern.vernaduwaste;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+// The device arrow on its own small view stacked above MapGridView. MapGridView places it
+// with translation, rotation and scale, which are render properties: a heading or position
+// update moves the already recorded arrow and redraws neither the map nor the arrow itself.
+public class DeviceArrowView extends View {
+
+    private final Paint arrowPaint = new Paint();
+    private final Path arrowPath = new Path();
+    private int arrowSize = 32;
+
+    public DeviceArrowView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        arrowPaint.setColor(Color.parseColor("#329eda"));
+        arrowPaint.setStyle(Paint.Style.FILL);
+        buildArrow(arrowPath, arrowSize);
+        arrowPath.offset(arrowSize / 2f, arrowSize / 2f);
+    }
+
+    // Arrow pointing up inside a size x size square centred on the origin.
+    public static void buildArrow(Path path, float size) {
+        path.rewind();
+        path.moveTo(0, -size / 2f);
+        path.lineTo(size / 2f, size / 2f);
+        path.lineTo(-size / 2f, size / 2f);
+        path.close();
+    }
+
+    // Side of the arrow in pixels before MapGridView applies its zoom.
+    public void setArrowSize(int size) {
+        if (size == arrowSize) return;
+        arrowSize = size;
+        buildArrow(arrowPath, size);
+        arrowPath.offset(size / 2f, size / 2f);
+        requestLayout();
+        invalidate();
+    }
+
+    public int getArrowSize() {
+        return arrowSize;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(arrowSize, arrowSize);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        canvas.drawPath(arrowPath, arrowPaint);
+    }
+}
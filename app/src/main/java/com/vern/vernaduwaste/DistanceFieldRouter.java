@@ -0,0 +1,68 @@
+package com.vern.vernaduwaste;
+
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Keeps one BinDistanceField per waste bin and rebuilds them on a background thread
+// whenever the floor maps or the bin positions change. Lookups never block: until the
+// fields for the current graph are published, route() returns null and callers fall
+// back to a regular search.
+public class DistanceFieldRouter {
+
+    private static final String TAG = "DistanceFieldRouter";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger generation = new AtomicInteger();
+    // Fields keyed by goal node id; replaced as a whole so readers always see one consistent set.
+    private volatile Map<Integer, BinDistanceField> fields = Collections.emptyMap();
+
+    // Schedules a rebuild for the given bins. Any rebuild still running is superseded.
+    public void rebuild(MultiFloorGraph graph, List<FirebaseHelper.WifiPosition> bins) {
+        if (graph == null) return;
+        int requested = generation.incrementAndGet();
+        executor.execute(() -> {
+            Map<Integer, BinDistanceField> built = new HashMap<>();
+            long startTime = System.currentTimeMillis();
+            for (FirebaseHelper.WifiPosition bin : bins) {
+                if (generation.get() != requested) {
+                    Log.d(TAG, "Distance field rebuild " + requested + " superseded.");
+                    return;
+                }
+                BinDistanceField field = BinDistanceField.build(graph, bin.floor, bin.x, bin.y);
+                if (field != null) {
+                    built.put(field.getGoalNode(), field);
+                } else {
+                    Log.w(TAG, "Bin at (" + bin.x + ", " + bin.y + ") on floor " + bin.floor + " is not on a walkable cell.");
+                }
+            }
+            if (generation.get() == requested) {
+                fields = built;
+                Log.d(TAG, "Built " + built.size() + " distance field(s) in " + (System.currentTimeMillis() - startTime) + " ms.");
+            }
+        });
+    }
+
+    // Route to the bin at (goalFloor, goalX, goalY) by descending its distance field, or null
+    // when no field for that bin over the given graph is ready yet, or the floors changed
+    // since it was built.
+    public AStarPathfinding.PathResult route(MultiFloorGraph graph,
+                                             int startFloor, int startX, int startY,
+                                             int goalFloor, int goalX, int goalY) {
+        if (graph == null) return null;
+        BinDistanceField field = fields.get(graph.nodeId(goalFloor, goalX, goalY));
+        if (field == null || field.getGraph() != graph || !field.isCurrent()) return null;
+        return field.route(startFloor, startX, startY);
+    }
+
+    public void shutdown() {
+        generation.incrementAndGet();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,138 @@
+package com.vern.vernaduwaste;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The static cell layer of one floor, drawn once into an offscreen bitmap at one pixel per
+// cell (row 0 of the map at the bottom, as MapGridView lays it out). Each level is painted
+// from its CellRectangles, one drawRect per same-type rectangle. MapGridView scales it up
+// with filtering off, so each frame costs one bitmap draw instead of one drawRect per cell.
+// For low zoom there are coarser levels of detail: at level k each pixel stands for a block
+// of 2^k x 2^k cells, built on first use from the level below. Blocks take the most
+// important type they contain (stairs, then walkable, rooms, inaccessible) so corridors and
+// stairs stay visible when zoomed out. Blocks on the right and bottom edges may reach past
+// the map; the view clips them. The layer belongs to one FloorModel state and has to be
+// re-rendered once isCurrent() fails.
+public class FloorLayer {
+
+    // Merge priority of each cell type; unknown types rank with inaccessible cells.
+    private static final int[] PRIORITY = {2, 0, 3, 1};
+
+    private final FloorModel model;
+    private final int modCount;
+    private final Paint[] cellPaints;
+    private final List<Level> levels = new ArrayList<>();
+
+    // Cell types of one level in bitmap row order, and the bitmap drawn from them.
+    private static class Level {
+        final int width;
+        final int height;
+        final byte[] types;
+        final Bitmap bitmap;
+
+        Level(int width, int height, byte[] types, Bitmap bitmap) {
+            this.width = width;
+            this.height = height;
+            this.types = types;
+            this.bitmap = bitmap;
+        }
+    }
+
+    private FloorLayer(FloorModel model, Paint[] cellPaints) {
+        this.model = model;
+        this.modCount = model.getModCount();
+        this.cellPaints = cellPaints;
+    }
+
+    // cellPaints[type] is the paint for cells of that type; unknown types use cellPaints[1].
+    public static FloorLayer render(FloorModel model, Paint[] cellPaints) {
+        FloorLayer layer = new FloorLayer(model, cellPaints);
+        int width = model.getWidth();
+        int height = model.getHeight();
+        byte[] types = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                types[(height - y - 1) * width + x] = (byte) model.getType(x, y);
+            }
+        }
+        layer.levels.add(layer.draw(width, height, types));
+        return layer;
+    }
+
+    // False once the floor was replaced or one of its cells changed since rendering.
+    public boolean isCurrent(FloorModel current) {
+        return current == model && current.getModCount() == modCount;
+    }
+
+    // Bitmap of the given level of detail, or of the coarsest one when the map is smaller
+    // than a single block of that level.
+    public Bitmap getBitmap(int level) {
+        return getLevel(level).bitmap;
+    }
+
+    // Cells per pixel side of the bitmap getBitmap(level) returns.
+    public int getBlockSize(int level) {
+        getLevel(level);
+        return 1 << Math.min(level, levels.size() - 1);
+    }
+
+    public void recycle() {
+        for (Level level : levels) {
+            level.bitmap.recycle();
+        }
+        levels.clear();
+    }
+
+    private Level getLevel(int wanted) {
+        Level last = levels.get(levels.size() - 1);
+        while (levels.size() <= wanted && (last.width > 1 || last.height > 1)) {
+            last = downsample(last);
+            levels.add(last);
+        }
+        return levels.get(Math.min(wanted, levels.size() - 1));
+    }
+
+    private Level downsample(Level fine) {
+        int width = (fine.width + 1) / 2;
+        int height = (fine.height + 1) / 2;
+        byte[] types = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int best = -1;
+                for (int dy = 0; dy < 2; dy++) {
+                    for (int dx = 0; dx < 2; dx++) {
+                        int fx = 2 * x + dx;
+                        int fy = 2 * y + dy;
+                        if (fx >= fine.width || fy >= fine.height) continue;
+                        int type = fine.types[fy * fine.width + fx];
+                        if (best < 0 || priority(type) > priority(best)) best = type;
+                    }
+                }
+                types[y * width + x] = (byte) best;
+            }
+        }
+        return draw(width, height, types);
+    }
+
+    private static int priority(int type) {
+        return type >= 0 && type < PRIORITY.length ? PRIORITY[type] : PRIORITY[FloorModel.INACCESSIBLE];
+    }
+
+    private Level draw(int width, int height, byte[] types) {
+        Bitmap bitmap = Bitmap.createBitmap(Math.max(1, width), Math.max(1, height), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        CellRectangles rects = CellRectangles.build(types, width, height);
+        for (int i = 0; i < rects.size(); i++) {
+            int type = rects.getType(i);
+            Paint paint = type >= 0 && type < cellPaints.length ? cellPaints[type] : cellPaints[FloorModel.INACCESSIBLE];
+            int left = rects.getX(i);
+            int top = rects.getY(i);
+            canvas.drawRect(left, top, left + rects.getWidth(i), top + rects.getHeight(i), paint);
+        }
+        return new Level(width, height, types, bitmap);
+    }
+}
@@ -0,0 +1,75 @@
+package com.vern.vernaduwaste;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Loads floor maps in parallel on a small background pool and hands each one to the main
+// thread as soon as it is ready, so the floor on screen can be drawn before the rest of the
+// building has loaded. The priority floor is queued first; the others stream in after it.
+// load() must be called from the main thread.
+public class FloorLoader {
+
+    private static final String TAG = "FloorLoader";
+
+    public interface Source {
+        // Called on a background thread.
+        FloorModel load(int floor) throws Exception;
+    }
+
+    public interface Listener {
+        void onFloorLoaded(FloorModel model);
+
+        void onFloorFailed(int floor, Exception error);
+    }
+
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean shutdown;
+
+    public FloorLoader() {
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    public void load(int[] floors, int priorityFloor, Source source, Listener listener) {
+        List<Integer> order = new ArrayList<>(floors.length);
+        for (int floor : floors) {
+            if (floor == priorityFloor) order.add(0, floor);
+            else order.add(floor);
+        }
+        long startTime = System.currentTimeMillis();
+        for (int floor : order) {
+            executor.execute(() -> {
+                FloorModel model = null;
+                Exception error = null;
+                try {
+                    model = source.load(floor);
+                } catch (Exception e) {
+                    error = e;
+                }
+                FloorModel result = model;
+                Exception failure = error;
+                mainHandler.post(() -> {
+                    if (shutdown) return;
+                    if (result != null) {
+                        Log.d(TAG, "Floor " + floor + " ready after " + (System.currentTimeMillis() - startTime) + " ms.");
+                        listener.onFloorLoaded(result);
+                    } else {
+                        listener.onFloorFailed(floor, failure);
+                    }
+                });
+            });
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+}
@@ -0,0 +1,121 @@
+package com.vern.vernaduwaste;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+// Compact binary floor map, read straight from a mapped or direct buffer. Big-endian layout:
+//
+//   int   magic ("VFLR")
+//   int   version
+//   int   floor number
+//   int   width
+//   int   height
+//   byte  cell code [width * height], row-major (y * width + x)
+//   int   stair count
+//   int   stair cell index [stair count], ascending
+//   int   component count                        (version 2)
+//   int   component label [width * height]       (version 2, -1 for unwalkable cells)
+//
+// Cells and labels are copied into the FloorModel with bulk gets, so loading does no
+// per-cell allocation, parsing or flood fill. Version 1 files, without labels, are still
+// read and labelled at load time. CompileFloorMapsTask in buildSrc runs write() on the JSON
+// maps at build time. Kept free of Android types so buildSrc and the benchmark module can run it.
+public final class FloorMapCodec {
+
+    public static final int MAGIC = 0x56464C52;
+    public static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_LABELS = 1;
+    public static final String EXTENSION = ".bin";
+
+    private FloorMapCodec() {
+    }
+
+    public static FloorModel read(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a binary floor map");
+            }
+            int version = in.getInt();
+            if (version != VERSION && version != VERSION_WITHOUT_LABELS) {
+                throw new IOException("Unsupported floor map version " + version);
+            }
+            int floor = in.getInt();
+            int width = in.getInt();
+            int height = in.getInt();
+            if (width < 0 || height < 0 || (long) width * height > in.remaining()) {
+                throw new IOException("Bad floor map size " + width + "x" + height);
+            }
+            int cellCount = width * height;
+            int cellsStart = in.position();
+            in.position(cellsStart + cellCount);
+            int stairCount = in.getInt();
+            if (stairCount < 0 || stairCount > cellCount) {
+                throw new IOException("Bad stair count " + stairCount);
+            }
+            int[] stairCells = new int[stairCount];
+            for (int i = 0; i < stairCells.length; i++) {
+                int index = in.getInt();
+                if (index < 0 || index >= cellCount || in.get(cellsStart + index) != FloorModel.STAIRS) {
+                    throw new IOException("Bad stair cell " + index);
+                }
+                stairCells[i] = index;
+            }
+            IntBuffer labels = null;
+            int componentCount = 0;
+            if (version >= VERSION) {
+                componentCount = in.getInt();
+                if ((long) cellCount * Integer.BYTES > in.remaining()) {
+                    throw new IOException("Truncated component labels");
+                }
+                labels = in.asIntBuffer();
+            }
+            in.position(cellsStart);
+            return FloorModel.fromCells(floor, width, height, in, stairCells, labels, componentCount);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt floor map", e);
+        }
+    }
+
+    public static void write(FloorModel model, OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        int width = model.getWidth();
+        int cellCount = width * model.getHeight();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(model.getFloor());
+        out.writeInt(width);
+        out.writeInt(model.getHeight());
+        for (int index = 0; index < cellCount; index++) {
+            out.writeByte(model.getTypeIndex(index));
+        }
+        List<int[]> stairs = model.getStairs();
+        out.writeInt(stairs.size());
+        for (int[] stair : stairs) {
+            out.writeInt(stair[1] * width + stair[0]);
+        }
+        // Compact the labels to 0..count-1 in scan order; setCell() can leave gaps.
+        int[] compact = new int[model.getComponentLabelLimit()];
+        Arrays.fill(compact, FloorModel.NO_COMPONENT);
+        int componentCount = 0;
+        for (int index = 0; index < cellCount; index++) {
+            int label = model.getComponentIndex(index);
+            if (label != FloorModel.NO_COMPONENT && compact[label] == FloorModel.NO_COMPONENT) {
+                compact[label] = componentCount++;
+            }
+        }
+        out.writeInt(componentCount);
+        for (int index = 0; index < cellCount; index++) {
+            int label = model.getComponentIndex(index);
+            out.writeInt(label == FloorModel.NO_COMPONENT ? label : compact[label]);
+        }
+        out.flush();
+    }
+}
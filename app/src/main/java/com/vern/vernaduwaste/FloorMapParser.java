@@ -0,0 +1,44 @@
+package com.vern.vernaduwaste;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// Parses a floor map stored as a JSON array of rows, grid[y][x], using the cell codes
+// described in AStarPathfinding. Kept free of Android types so the benchmark module can run it.
+public final class FloorMapParser {
+
+    private FloorMapParser() {
+    }
+
+    public static int[][] parse(InputStream is) throws IOException, JSONException {
+        return parse(readFully(is));
+    }
+
+    public static int[][] parse(String jsonStr) throws JSONException {
+        JSONArray jsonArray = new JSONArray(jsonStr);
+        int[][] grid = new int[jsonArray.length()][jsonArray.getJSONArray(0).length()];
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONArray row = jsonArray.getJSONArray(i);
+            for (int j = 0; j < row.length(); j++) {
+                grid[i][j] = row.getInt(j);
+            }
+        }
+        return grid;
+    }
+
+    // InputStream.available() is only an estimate, so read until end of stream.
+    static String readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(1024, is.available()));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,513 @@
+package com.vern.vernaduwaste;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// A floor map compiled once at load time. Cells are indexed y * width + x and stored as
+// one type byte each (0 walkable, 1 inaccessible, 2 stairs, 3 rooms), with walkability
+// packed 64 cells per long so neighbour checks are a single bit test. The stair cells and
+// an 8-connected component label per cell are precomputed as well; setCell() keeps the
+// labels current by merging or splitting only the components around the changed cell.
+// Labels are stored in a char per cell, widened to an int only on floors with more than
+// 65534 components. A nearest-walkable map, built with the model and repaired around
+// each changed cell, snaps any cell to walkable space with one array lookup.
+public class FloorModel {
+
+    public static final byte WALKABLE = 0;
+    public static final byte INACCESSIBLE = 1;
+    public static final byte STAIRS = 2;
+    public static final byte ROOM = 3;
+    // Component label of cells that are not walkable.
+    public static final int NO_COMPONENT = -1;
+    // 8-connected neighbour offsets: N, NE, E, SE, S, SW, W, NW.
+    public static final int[][] DIRECTIONS = {
+            {0, -1}, {1, -1}, {1, 0}, {1, 1},
+            {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}
+    };
+
+    private final int floor;
+    private final int width;
+    private final int height;
+    private final byte[] types;
+    private final long[] walkable;
+    // Component label + 1 per cell, 0 for NO_COMPONENT. Exactly one of the two is set.
+    private char[] narrowLabels;
+    private int[] wideLabels;
+    // Cell index of the closest walkable cell (Chebyshev distance), -1 when there is none.
+    private final int[] nearestWalkable;
+    private List<int[]> stairs;
+    private int componentCount;
+    private int nextLabel;
+    private int modCount;
+
+    private FloorModel(int floor, int width, int height) {
+        this.floor = floor;
+        this.width = width;
+        this.height = height;
+        types = new byte[width * height];
+        walkable = new long[(width * height + 63) >>> 6];
+        narrowLabels = new char[width * height];
+        nearestWalkable = new int[width * height];
+    }
+
+    // Compiles grid[y][x] cell codes. The grid is not retained.
+    public static FloorModel compile(int floor, int[][] grid) {
+        int height = grid.length;
+        int width = height == 0 ? 0 : grid[0].length;
+        FloorModel model = new FloorModel(floor, width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                model.write(y * width + x, (byte) grid[y][x]);
+            }
+        }
+        model.stairs = model.collectStairs();
+        model.labelComponents();
+        model.buildNearestWalkable();
+        return model;
+    }
+
+    // Builds a model from width * height row-major cell bytes read from the buffer's current
+    // position with one bulk copy, and a precomputed table of stair cell indices.
+    public static FloorModel fromCells(int floor, int width, int height, ByteBuffer cells, int[] stairCells) {
+        return fromCells(floor, width, height, cells, stairCells, null, 0);
+    }
+
+    // As above, also taking precomputed component labels (one per cell, NO_COMPONENT for cells
+    // that are not walkable) instead of flood filling. Throws IllegalArgumentException when
+    // the labels do not fit the cells.
+    public static FloorModel fromCells(int floor, int width, int height, ByteBuffer cells, int[] stairCells,
+                                       IntBuffer labels, int componentCount) {
+        FloorModel model = new FloorModel(floor, width, height);
+        cells.get(model.types);
+        for (int index = 0; index < model.types.length; index++) {
+            model.write(index, model.types[index]);
+        }
+        List<int[]> found = new ArrayList<>(stairCells.length);
+        for (int index : stairCells) {
+            found.add(new int[]{index % width, index / width});
+        }
+        model.stairs = Collections.unmodifiableList(found);
+        if (labels == null) {
+            model.labelComponents();
+        } else {
+            for (int index = 0; index < model.types.length; index++) {
+                int label = labels.get();
+                boolean labelled = label >= 0 && label < componentCount;
+                if (labelled != model.isWalkableIndex(index) || (!labelled && label != NO_COMPONENT)) {
+                    throw new IllegalArgumentException("Bad component label " + label + " at cell " + index);
+                }
+                model.setLabel(index, label);
+            }
+            model.componentCount = componentCount;
+            model.nextLabel = componentCount;
+        }
+        model.buildNearestWalkable();
+        return model;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isInBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // Walkable if the cell is 0 (walkable) or 2 (stairs). Out-of-bounds cells are not walkable.
+    public boolean isWalkable(int x, int y) {
+        return isInBounds(x, y) && isWalkableIndex(y * width + x);
+    }
+
+    public boolean isWalkableIndex(int index) {
+        return (walkable[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public int getType(int x, int y) {
+        return types[y * width + x];
+    }
+
+    public int getTypeIndex(int index) {
+        return types[index];
+    }
+
+    // Stair cells as {x, y}, in row-major order.
+    public List<int[]> getStairs() {
+        return stairs;
+    }
+
+    // Cells with the same label are connected by 8-connected moves on this floor;
+    // NO_COMPONENT for cells that are not walkable. Labels are below getComponentLabelLimit()
+    // but not necessarily contiguous once cells have been changed.
+    public int getComponent(int x, int y) {
+        return getLabel(y * width + x);
+    }
+
+    public int getComponentIndex(int index) {
+        return getLabel(index);
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getComponentLabelLimit() {
+        return nextLabel;
+    }
+
+    // Closest walkable cell to (x, y) as {x, y}, (x, y) itself when it is walkable, or null
+    // when the floor has no walkable cell. Among equally close cells any one may be returned.
+    public int[] nearestWalkable(int x, int y) {
+        int index = nearestWalkableIndex(x, y);
+        return index < 0 ? null : new int[]{index % width, index / width};
+    }
+
+    public int nearestWalkableIndex(int x, int y) {
+        return nearestWalkable[y * width + x];
+    }
+
+    // Heap footprint of the per-cell arrays, for memory budgeting. Grows when the labels
+    // are widened.
+    public long getMemoryBytes() {
+        long cells = types.length;
+        long bytes = cells + walkable.length * 8L + 4 * cells;
+        bytes += narrowLabels != null ? 2 * cells : 4 * cells;
+        return bytes;
+    }
+
+    // Bumped by every setCell() that changes the floor, so dependent indexes can tell
+    // when they are out of date.
+    public int getModCount() {
+        return modCount;
+    }
+
+    // Changes one cell, e.g. a corridor being closed. Stairs, components and the
+    // nearest-walkable map follow; only the cells around the change are revisited.
+    public void setCell(int x, int y, int type) {
+        int index = y * width + x;
+        int previous = types[index];
+        if (previous == type) return;
+        boolean wasWalkable = isWalkableIndex(index);
+        if (wasWalkable != (type == WALKABLE || type == STAIRS)
+                && nextLabel + DIRECTIONS.length > labelSpace()) {
+            // Splits retire labels; compact them before they outgrow the label storage.
+            labelComponents();
+        }
+        write(index, (byte) type);
+        if (previous == STAIRS || type == STAIRS) {
+            stairs = collectStairs();
+        }
+        boolean nowWalkable = isWalkableIndex(index);
+        if (!wasWalkable && nowWalkable) {
+            joinComponents(index);
+            addNearestSource(index);
+        } else if (wasWalkable && !nowWalkable) {
+            splitComponent(index);
+            removeNearestSource(index);
+        }
+        modCount++;
+    }
+
+    // Expands the model back into grid[y][x] form for code that still needs an int[][].
+    public int[][] toGrid() {
+        int[][] grid = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid[y][x] = types[y * width + x];
+            }
+        }
+        return grid;
+    }
+
+    private void write(int index, byte type) {
+        types[index] = type;
+        if (type == WALKABLE || type == STAIRS) {
+            walkable[index >>> 6] |= 1L << index;
+        } else {
+            walkable[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private List<int[]> collectStairs() {
+        List<int[]> found = new ArrayList<>();
+        for (int index = 0; index < types.length; index++) {
+            if (types[index] == STAIRS) {
+                found.add(new int[]{index % width, index / width});
+            }
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    private int getLabel(int index) {
+        return (narrowLabels != null ? narrowLabels[index] : wideLabels[index]) - 1;
+    }
+
+    private void setLabel(int index, int label) {
+        if (narrowLabels != null && label >= Character.MAX_VALUE) {
+            wideLabels = new int[narrowLabels.length];
+            for (int i = 0; i < narrowLabels.length; i++) {
+                wideLabels[i] = narrowLabels[i];
+            }
+            narrowLabels = null;
+        }
+        if (narrowLabels != null) {
+            narrowLabels[index] = (char) (label + 1);
+        } else {
+            wideLabels[index] = label + 1;
+        }
+    }
+
+    // Labels that fit the current storage before it has to be widened or compacted.
+    private int labelSpace() {
+        return narrowLabels != null ? Character.MAX_VALUE - 1 : 2 * types.length;
+    }
+
+    // Flood fills every walkable cell with 8-connected moves, as the search uses. Labels go
+    // back to chars unless the floor has too many components for them.
+    private void labelComponents() {
+        if (narrowLabels != null) {
+            Arrays.fill(narrowLabels, (char) 0);
+        } else {
+            wideLabels = null;
+            narrowLabels = new char[types.length];
+        }
+        int[] queue = new int[64];
+        int label = 0;
+        for (int seed = 0; seed < types.length; seed++) {
+            if (getLabel(seed) != NO_COMPONENT || !isWalkableIndex(seed)) continue;
+            queue = relabel(queue, seed, NO_COMPONENT, label++);
+        }
+        componentCount = label;
+        nextLabel = label;
+    }
+
+    // Multi-source BFS from every walkable cell over all 8 neighbours, walls included, so
+    // each cell learns the walkable cell at the smallest Chebyshev distance.
+    private void buildNearestWalkable() {
+        Arrays.fill(nearestWalkable, -1);
+        int[] queue = new int[types.length];
+        int head = 0;
+        int tail = 0;
+        for (int index = 0; index < types.length; index++) {
+            if (isWalkableIndex(index)) {
+                nearestWalkable[index] = index;
+                queue[tail++] = index;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = current % width;
+            int cy = current / width;
+            for (int[] dir : DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (nearestWalkable[neighbor] < 0) {
+                    nearestWalkable[neighbor] = nearestWalkable[current];
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    // Chebyshev distance from index to its current nearest walkable cell, MAX_VALUE when none.
+    private int nearestDistance(int index) {
+        int nearest = nearestWalkable[index];
+        return nearest < 0 ? Integer.MAX_VALUE : chebyshev(index, nearest);
+    }
+
+    private int chebyshev(int a, int b) {
+        return Math.max(Math.abs(a % width - b % width), Math.abs(a / width - b / width));
+    }
+
+    // source became walkable: it takes over every cell it is now strictly closest to. Those
+    // cells form a region around source in which each cell's neighbour one step closer to
+    // source is in the region too, so a flood from source that stops at cells that do not
+    // improve finds all of them.
+    private void addNearestSource(int source) {
+        int[] queue = new int[64];
+        int head = 0;
+        int tail = 0;
+        nearestWalkable[source] = source;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = current % width;
+            int cy = current / width;
+            for (int[] dir : DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (chebyshev(neighbor, source) < nearestDistance(neighbor)) {
+                    nearestWalkable[neighbor] = source;
+                    if (tail == queue.length) queue = Arrays.copyOf(queue, Math.min(2 * tail, types.length));
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    // source stopped being walkable. Every cell source was a closest walkable cell for is
+    // found by a flood as in addNearestSource(), and marked with its position in the region
+    // (encoded as -2 - position). The region is then refilled by a multi-source Dijkstra
+    // from the cells around it: a cell one step outside the region offers its own nearest
+    // cell at its distance + 1, which is exact because a shortest line from any region cell
+    // to its new nearest cell leaves the region at such a neighbour.
+    private void removeNearestSource(int source) {
+        int[] region = new int[64];
+        int size = 0;
+        nearestWalkable[source] = -2;
+        region[size++] = source;
+        for (int head = 0; head < size; head++) {
+            int current = region[head];
+            int cx = current % width;
+            int cy = current / width;
+            for (int[] dir : DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (nearestWalkable[neighbor] >= 0 && chebyshev(neighbor, source) == nearestDistance(neighbor)) {
+                    nearestWalkable[neighbor] = -2 - size;
+                    if (size == region.length) region = Arrays.copyOf(region, Math.min(2 * size, types.length));
+                    region[size++] = neighbor;
+                }
+            }
+        }
+        // Best nearest cell offered to each region cell so far, and its distance.
+        int[] offered = new int[size];
+        float[] best = new float[size];
+        IndexedMinHeap queue = new IndexedMinHeap(size);
+        for (int i = 0; i < size; i++) {
+            int cell = region[i];
+            int cx = cell % width;
+            int cy = cell / width;
+            best[i] = Float.POSITIVE_INFINITY;
+            offered[i] = -1;
+            for (int[] dir : DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (nearestWalkable[neighbor] < 0) continue;
+                float distance = nearestDistance(neighbor) + 1;
+                if (distance < best[i]) {
+                    best[i] = distance;
+                    offered[i] = nearestWalkable[neighbor];
+                }
+            }
+            if (offered[i] >= 0) queue.push(i, best[i]);
+        }
+        while (!queue.isEmpty()) {
+            int i = queue.poll();
+            int cell = region[i];
+            nearestWalkable[cell] = offered[i];
+            int cx = cell % width;
+            int cy = cell / width;
+            for (int[] dir : DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                int j = -2 - nearestWalkable[neighbor];
+                if (j < 0) continue; // outside the region, or already settled
+                if (best[i] + 1 < best[j]) {
+                    best[j] = best[i] + 1;
+                    offered[j] = offered[i];
+                    queue.push(j, best[j]);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            // Nothing walkable is left to offer.
+            if (nearestWalkable[region[i]] < -1) nearestWalkable[region[i]] = -1;
+        }
+    }
+
+    // A cell became walkable: it joins its neighbours' components, merging them into one.
+    private void joinComponents(int index) {
+        int x = index % width;
+        int y = index / width;
+        int joined = NO_COMPONENT;
+        int[] queue = new int[64];
+        for (int[] dir : DIRECTIONS) {
+            int nx = x + dir[0];
+            int ny = y + dir[1];
+            if (!isInBounds(nx, ny)) continue;
+            int neighbor = ny * width + nx;
+            int label = getLabel(neighbor);
+            if (label == NO_COMPONENT || label == joined) continue;
+            if (joined == NO_COMPONENT) {
+                joined = label;
+            } else {
+                queue = relabel(queue, neighbor, label, joined);
+                componentCount--;
+            }
+        }
+        if (joined == NO_COMPONENT) {
+            joined = nextLabel++;
+            componentCount++;
+        }
+        setLabel(index, joined);
+    }
+
+    // A cell stopped being walkable: its component may fall apart, so every neighbouring
+    // piece is flood filled with a fresh label. Only that one component is visited.
+    private void splitComponent(int index) {
+        int x = index % width;
+        int y = index / width;
+        int old = getLabel(index);
+        setLabel(index, NO_COMPONENT);
+        int[] queue = new int[64];
+        int pieces = 0;
+        for (int[] dir : DIRECTIONS) {
+            int nx = x + dir[0];
+            int ny = y + dir[1];
+            if (!isInBounds(nx, ny)) continue;
+            int neighbor = ny * width + nx;
+            if (getLabel(neighbor) != old) continue;
+            queue = relabel(queue, neighbor, old, nextLabel++);
+            pieces++;
+        }
+        componentCount += pieces - 1;
+    }
+
+    // Breadth-first relabel of the walkable cells labelled from that are connected to seed.
+    // queue is scratch space, grown as needed and returned for the caller's next relabel.
+    private int[] relabel(int[] queue, int seed, int from, int to) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = seed;
+        setLabel(seed, to);
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = current % width;
+            int cy = current / width;
+            for (int[] dir : DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (getLabel(neighbor) == from && isWalkableIndex(neighbor)) {
+                    setLabel(neighbor, to);
+                    if (tail == queue.length) queue = Arrays.copyOf(queue, Math.min(2 * tail, types.length));
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return queue;
+    }
+}
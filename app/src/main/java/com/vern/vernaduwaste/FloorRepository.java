@@ -0,0 +1,146 @@
+package com.vern.vernaduwaste;
+
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The floors of a building, loaded on demand. Floor numbers are discovered from the asset
+// names (floorN.bin / floorN.json) instead of being hard-coded. Resident floors are kept in
+// least-recently-used order; once their combined size exceeds the memory budget the
+// least recently used floors are evicted, except for pinned ones (the floor on screen, the
+// device floor, the goal floor and the floors the current routing graph spans).
+// All methods must be called from the main thread.
+public class FloorRepository {
+
+    private static final String TAG = "FloorRepository";
+    private static final Pattern FLOOR_ASSET = Pattern.compile("floor(\\d+)\\.(bin|json)");
+
+    public interface Listener {
+        void onFloorLoaded(FloorModel model);
+
+        void onFloorFailed(int floor, Exception error);
+    }
+
+    private final int[] floors;
+    private final FloorLoader loader;
+    private final FloorLoader.Source source;
+    private final long memoryBudget;
+    private final Listener listener;
+    private final LinkedHashMap<Integer, FloorModel> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> loading = new HashSet<>();
+    private final Set<Integer> pinned = new HashSet<>();
+
+    public FloorRepository(int[] floors, FloorLoader loader, FloorLoader.Source source,
+                           long memoryBudget, Listener listener) {
+        this.floors = floors.clone();
+        this.loader = loader;
+        this.source = source;
+        this.memoryBudget = memoryBudget;
+        this.listener = listener;
+    }
+
+    // Floor numbers of the floor map assets among names, ascending and without duplicates.
+    public static int[] discoverFloors(String[] assetNames) {
+        Set<Integer> found = new TreeSet<>();
+        if (assetNames != null) {
+            for (String name : assetNames) {
+                Matcher matcher = FLOOR_ASSET.matcher(name);
+                if (matcher.matches()) found.add(Integer.parseInt(matcher.group(1)));
+            }
+        }
+        int[] result = new int[found.size()];
+        int i = 0;
+        for (int floor : found) {
+            result[i++] = floor;
+        }
+        return result;
+    }
+
+    public int[] getFloors() {
+        return floors.clone();
+    }
+
+    public boolean hasFloor(int floor) {
+        for (int known : floors) {
+            if (known == floor) return true;
+        }
+        return false;
+    }
+
+    // The resident model for floor, or null when it is not loaded. Counts as a use.
+    public FloorModel get(int floor) {
+        return resident.get(floor);
+    }
+
+    public boolean isResident(int floor) {
+        return resident.containsKey(floor);
+    }
+
+    // Summed on every call: a model grows after loading, e.g. once its nearest-walkable map
+    // is built, so sizes recorded at load time would go stale.
+    public long getResidentBytes() {
+        long bytes = 0;
+        for (FloorModel model : resident.values()) {
+            bytes += model.getMemoryBytes();
+        }
+        return bytes;
+    }
+
+    // Starts loading whichever of the given floors are neither resident nor already loading.
+    // The first one is loaded first.
+    public void request(int... wanted) {
+        int[] missing = new int[wanted.length];
+        int count = 0;
+        for (int floor : wanted) {
+            if (!hasFloor(floor) || resident.containsKey(floor) || !loading.add(floor)) continue;
+            missing[count++] = floor;
+        }
+        if (count == 0) return;
+        int[] batch = new int[count];
+        System.arraycopy(missing, 0, batch, 0, count);
+        loader.load(batch, batch[0], source, loaderListener);
+    }
+
+    // Replaces the set of floors that must stay resident, then evicts down to the budget.
+    public void setPinned(Set<Integer> floorsToPin) {
+        pinned.clear();
+        pinned.addAll(floorsToPin);
+        trim();
+    }
+
+    private final FloorLoader.Listener loaderListener = new FloorLoader.Listener() {
+        @Override
+        public void onFloorLoaded(FloorModel model) {
+            loading.remove(model.getFloor());
+            resident.put(model.getFloor(), model);
+            listener.onFloorLoaded(model);
+            trim();
+        }
+
+        @Override
+        public void onFloorFailed(int floor, Exception error) {
+            loading.remove(floor);
+            listener.onFloorFailed(floor, error);
+        }
+    };
+
+    // Evicts unpinned floors, least recently used first, while over the memory budget.
+    private void trim() {
+        long residentBytes = getResidentBytes();
+        Iterator<Map.Entry<Integer, FloorModel>> it = resident.entrySet().iterator();
+        while (residentBytes > memoryBudget && it.hasNext()) {
+            Map.Entry<Integer, FloorModel> entry = it.next();
+            if (pinned.contains(entry.getKey())) continue;
+            residentBytes -= entry.getValue().getMemoryBytes();
+            it.remove();
+            Log.d(TAG, "Evicted floor " + entry.getKey() + "; " + residentBytes + " bytes resident.");
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.vern.vernaduwaste;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// HPA* for one floor. The grid is cut into square clusters; wherever two neighbouring
+// clusters share a run of walkable border cells an entrance (a pair of cells, one on each
+// side) is placed. A diagonal step across a border or through a cluster corner gets its own
+// entrance unless both of its cells can also cross straight, so every route the grid allows
+// has a counterpart in the abstract graph. Step distances between the entrances of a cluster
+// are precomputed, so a query searches the small abstract graph of entrances and only the
+// segments that are actually displayed need to be refined into grid cells. Routes are
+// near-optimal: a cluster border is only crossed at an entrance.
+public class HierarchicalPathfinder {
+
+    private static final String TAG = "HierarchicalPathfinder";
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    // Border runs at least this long get an entrance at each end instead of one in the middle.
+    private static final int LONG_ENTRANCE_LENGTH = 6;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final AStarPathfinding pathfinder;
+    private final int[][] grid;
+    private final int width, height;
+    private final int clusterSize;
+    private final int clustersX, clustersY;
+    private final Cluster[] clusters;
+    // Transitions across the border to the right of / below each cluster, as {cellA, cellB}
+    // pairs with cellA inside the cluster. A diagonal transition on the right border may end
+    // in the cluster above or below the right-hand neighbour; null where there is no border.
+    private final List<List<int[]>> rightBorders;
+    private final List<List<int[]>> bottomBorders;
+    // Cell index -> slot in its cluster's entrance list, or -1.
+    private final int[] entranceSlot;
+
+    // Abstract search scratch, indexed by cell and reset with a stamp.
+    private final IndexedMinHeap openSet;
+    private final float[] gCost;
+    private final int[] parent;
+    private final int[] visitedStamp;
+    private int stamp = 0;
+    // Cluster-local BFS scratch.
+    private final int[] bfsStamp;
+    private final int[] bfsParent;
+    private final int[] bfsDistance;
+    private final int[] bfsQueue;
+    private int bfsRun = 0;
+
+    private static class Cluster {
+        final int x0, y0, x1, y1; // bounds, x1/y1 exclusive
+        int[] entrances = new int[0];
+        int[][] distances = new int[0][0];
+
+        Cluster(int x0, int y0, int x1, int y1) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+
+        boolean contains(int x, int y) {
+            return x >= x0 && x < x1 && y >= y0 && y < y1;
+        }
+    }
+
+    public HierarchicalPathfinder(AStarPathfinding pathfinder, int[][] grid, int clusterSize) {
+        this.pathfinder = pathfinder;
+        this.grid = grid;
+        this.height = grid.length;
+        this.width = grid[0].length;
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        int cellCount = width * height;
+        clusters = new Cluster[clustersX * clustersY];
+        rightBorders = new ArrayList<>(Collections.nCopies(clusters.length, null));
+        bottomBorders = new ArrayList<>(Collections.nCopies(clusters.length, null));
+        entranceSlot = new int[cellCount];
+        Arrays.fill(entranceSlot, -1);
+        openSet = new IndexedMinHeap(cellCount);
+        gCost = new float[cellCount];
+        parent = new int[cellCount];
+        visitedStamp = new int[cellCount];
+        bfsStamp = new int[cellCount];
+        bfsParent = new int[cellCount];
+        bfsDistance = new int[cellCount];
+        bfsQueue = new int[clusterSize * clusterSize];
+
+        for (int cy = 0; cy < clustersY; cy++) {
+            for (int cx = 0; cx < clustersX; cx++) {
+                clusters[cy * clustersX + cx] = new Cluster(cx * clusterSize, cy * clusterSize,
+                        Math.min(width, (cx + 1) * clusterSize), Math.min(height, (cy + 1) * clusterSize));
+            }
+        }
+        for (int c = 0; c < clusters.length; c++) {
+            buildBorders(c);
+        }
+        for (int c = 0; c < clusters.length; c++) {
+            buildCluster(c);
+        }
+        Log.d(TAG, "Built " + clusters.length + " clusters of size " + clusterSize + " for a " + width + "x" + height + " grid.");
+    }
+
+    public int[][] getGrid() {
+        return grid;
+    }
+
+    // Changes one cell and rebuilds only the cluster containing it and the eight around it:
+    // every transition the cell takes part in, straight or diagonal, starts in one of them.
+    public void updateCell(int x, int y, int cellType) {
+        if (grid[y][x] == cellType) return;
+        grid[y][x] = cellType;
+        int cx = x / clusterSize;
+        int cy = y / clusterSize;
+        int x0 = Math.max(0, cx - 1), x1 = Math.min(clustersX - 1, cx + 1);
+        int y0 = Math.max(0, cy - 1), y1 = Math.min(clustersY - 1, cy + 1);
+        for (int ny = y0; ny <= y1; ny++) {
+            for (int nx = x0; nx <= x1; nx++) {
+                buildBorders(ny * clustersX + nx);
+            }
+        }
+        for (int ny = y0; ny <= y1; ny++) {
+            for (int nx = x0; nx <= x1; nx++) {
+                buildCluster(ny * clustersX + nx);
+            }
+        }
+        Log.d(TAG, "Rebuilt clusters around (" + x + ", " + y + ").");
+    }
+
+    // Abstract route from start to goal; refine segments on demand with HierarchicalPath.
+    public HierarchicalPath findAbstractPath(int startX, int startY, int goalX, int goalY) {
+        if (!pathfinder.isInBounds(grid, startX, startY) || !pathfinder.isInBounds(grid, goalX, goalY)
+                || !pathfinder.isWalkable(grid, startX, startY) || !pathfinder.isWalkable(grid, goalX, goalY)) {
+            return new HierarchicalPath(null, 0);
+        }
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        Cluster startCluster = clusterOf(start);
+        Cluster goalCluster = clusterOf(goal);
+
+        // Distances from the start and the goal to the entrances of their own clusters.
+        int explored = localDistances(startCluster, start);
+        int directToGoal = startCluster == goalCluster ? bfsDistanceTo(goal) : UNREACHABLE;
+        int[] startLinks = entranceDistances(startCluster);
+        explored += localDistances(goalCluster, goal);
+        int[] goalLinks = entranceDistances(goalCluster);
+
+        newSearch();
+        gCost[start] = 0;
+        parent[start] = -1;
+        visitedStamp[start] = stamp;
+        openSet.push(start, (float) pathfinder.chebyshevDistance(startX, startY, goalX, goalY));
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            explored++;
+            if (current == goal) {
+                return new HierarchicalPath(buildWaypoints(goal), explored);
+            }
+            if (current == start) {
+                if (directToGoal != UNREACHABLE) relax(current, goal, directToGoal, goalX, goalY);
+                for (int i = 0; i < startLinks.length; i++) {
+                    if (startLinks[i] != UNREACHABLE) relax(current, startCluster.entrances[i], startLinks[i], goalX, goalY);
+                }
+            }
+            int slot = entranceSlot[current];
+            if (slot < 0) continue;
+            Cluster cluster = clusterOf(current);
+            for (int j = 0; j < cluster.entrances.length; j++) {
+                int d = cluster.distances[slot][j];
+                if (j != slot && d != UNREACHABLE) relax(current, cluster.entrances[j], d, goalX, goalY);
+            }
+            if (cluster == goalCluster && goalLinks[slot] != UNREACHABLE) {
+                relax(current, goal, goalLinks[slot], goalX, goalY);
+            }
+            relaxTransitions(current, goalX, goalY);
+        }
+        return new HierarchicalPath(null, explored);
+    }
+
+    // Convenience: abstract search plus full refinement, as a drop-in AStarResult.
+    public AStarPathfinding.AStarResult findPath(int startX, int startY, int goalX, int goalY) {
+        HierarchicalPath path = findAbstractPath(startX, startY, goalX, goalY);
+        if (!path.isFound()) return new AStarPathfinding.AStarResult(null, path.exploredCount);
+        return new AStarPathfinding.AStarResult(path.refine(), path.exploredCount);
+    }
+
+    private void newSearch() {
+        openSet.clear();
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    private void relax(int from, int to, float cost, int goalX, int goalY) {
+        float tentativeG = gCost[from] + cost;
+        if (visitedStamp[to] == stamp && tentativeG >= gCost[to]) return;
+        gCost[to] = tentativeG;
+        parent[to] = from;
+        visitedStamp[to] = stamp;
+        openSet.push(to, tentativeG + (float) pathfinder.chebyshevDistance(to % width, to / width, goalX, goalY));
+    }
+
+    // Follows every inter-cluster transition that starts at cell. Transitions owned by another
+    // cluster can only reach cell from the cluster above or from the column to the left.
+    private void relaxTransitions(int cell, int goalX, int goalY) {
+        int c = clusterIndexOf(cell);
+        int cx = c % clustersX;
+        int cy = c / clustersX;
+        relaxBorder(rightBorders.get(c), cell, goalX, goalY);
+        relaxBorder(bottomBorders.get(c), cell, goalX, goalY);
+        if (cy > 0) relaxBorder(bottomBorders.get(c - clustersX), cell, goalX, goalY);
+        if (cx > 0) {
+            for (int ny = Math.max(0, cy - 1); ny <= Math.min(clustersY - 1, cy + 1); ny++) {
+                relaxBorder(rightBorders.get(ny * clustersX + cx - 1), cell, goalX, goalY);
+            }
+        }
+    }
+
+    private void relaxBorder(List<int[]> border, int cell, int goalX, int goalY) {
+        if (border == null) return;
+        for (int[] transition : border) {
+            if (transition[0] == cell) relax(cell, transition[1], 1, goalX, goalY);
+            else if (transition[1] == cell) relax(cell, transition[0], 1, goalX, goalY);
+        }
+    }
+
+    private int[] buildWaypoints(int goal) {
+        int length = 0;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            length++;
+        }
+        int[] waypoints = new int[length];
+        int slot = length - 1;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            waypoints[slot--] = i;
+        }
+        return waypoints;
+    }
+
+    // Recomputes the transitions on the borders to the right of and below cluster c. The
+    // right border also takes the diagonal steps through the cluster's right-hand corners.
+    private void buildBorders(int c) {
+        Cluster cluster = clusters[c];
+        int cx = c % clustersX;
+        int cy = c / clustersX;
+        rightBorders.set(c, null);
+        bottomBorders.set(c, null);
+        if (cx < clustersX - 1) {
+            List<int[]> transitions = new ArrayList<>();
+            int x = cluster.x1 - 1;
+            int runStart = -1;
+            for (int y = cluster.y0; y <= cluster.y1; y++) {
+                boolean open = y < cluster.y1 && isWalkable(x, y) && isWalkable(x + 1, y);
+                if (open && runStart < 0) runStart = y;
+                if (!open && runStart >= 0) {
+                    addRun(transitions, runStart, y - 1, x, true);
+                    runStart = -1;
+                }
+            }
+            for (int y = cluster.y0; y < cluster.y1; y++) {
+                addDiagonal(transitions, x, y, x + 1, y - 1);
+                addDiagonal(transitions, x, y, x + 1, y + 1);
+            }
+            rightBorders.set(c, transitions);
+        }
+        if (cy < clustersY - 1) {
+            List<int[]> transitions = new ArrayList<>();
+            int y = cluster.y1 - 1;
+            int runStart = -1;
+            for (int x = cluster.x0; x <= cluster.x1; x++) {
+                boolean open = x < cluster.x1 && isWalkable(x, y) && isWalkable(x, y + 1);
+                if (open && runStart < 0) runStart = x;
+                if (!open && runStart >= 0) {
+                    addRun(transitions, runStart, x - 1, y, false);
+                    runStart = -1;
+                }
+            }
+            // Diagonals leaving through a corner belong to the right border.
+            for (int x = cluster.x0; x < cluster.x1; x++) {
+                if (x > cluster.x0) addDiagonal(transitions, x, y, x - 1, y + 1);
+                if (x < cluster.x1 - 1) addDiagonal(transitions, x, y, x + 1, y + 1);
+            }
+            bottomBorders.set(c, transitions);
+        }
+    }
+
+    private boolean isWalkable(int x, int y) {
+        return pathfinder.isInBounds(grid, x, y) && pathfinder.isWalkable(grid, x, y);
+    }
+
+    // Adds the diagonal step from (ax, ay) to (bx, by) as a transition of its own, unless the
+    // two cells where it cuts the corner are walkable too: then (ax, by) and (bx, ay) cross
+    // straight, so the straight entrances already connect both ends.
+    private void addDiagonal(List<int[]> transitions, int ax, int ay, int bx, int by) {
+        if (!isWalkable(ax, ay) || !isWalkable(bx, by)) return;
+        if (isWalkable(bx, ay) && isWalkable(ax, by)) return;
+        transitions.add(new int[]{ay * width + ax, by * width + bx});
+    }
+
+    // Adds the entrance(s) for a run of open border positions [from, to].
+    private void addRun(List<int[]> transitions, int from, int to, int fixed, boolean vertical) {
+        if (to - from + 1 >= LONG_ENTRANCE_LENGTH) {
+            addTransition(transitions, from, fixed, vertical);
+            addTransition(transitions, to, fixed, vertical);
+        } else {
+            addTransition(transitions, (from + to) / 2, fixed, vertical);
+        }
+    }
+
+    private void addTransition(List<int[]> transitions, int along, int fixed, boolean vertical) {
+        if (vertical) {
+            transitions.add(new int[]{along * width + fixed, along * width + fixed + 1});
+        } else {
+            transitions.add(new int[]{fixed * width + along, (fixed + 1) * width + along});
+        }
+    }
+
+    // Collects the entrances of cluster c from its four borders and recomputes their distances.
+    private void buildCluster(int c) {
+        Cluster cluster = clusters[c];
+        for (int cell : cluster.entrances) {
+            entranceSlot[cell] = -1;
+        }
+        int cx = c % clustersX;
+        int cy = c / clustersX;
+        List<Integer> cells = new ArrayList<>();
+        collectEntrances(cells, rightBorders.get(c), 0, c);
+        collectEntrances(cells, bottomBorders.get(c), 0, c);
+        if (cy > 0) collectEntrances(cells, bottomBorders.get(c - clustersX), 1, c);
+        if (cx > 0) {
+            for (int ny = Math.max(0, cy - 1); ny <= Math.min(clustersY - 1, cy + 1); ny++) {
+                collectEntrances(cells, rightBorders.get(ny * clustersX + cx - 1), 1, c);
+            }
+        }
+        int[] entrances = new int[cells.size()];
+        for (int i = 0; i < entrances.length; i++) {
+            entrances[i] = cells.get(i);
+            entranceSlot[entrances[i]] = i;
+        }
+        cluster.entrances = entrances;
+        cluster.distances = new int[entrances.length][];
+        for (int i = 0; i < entrances.length; i++) {
+            localDistances(cluster, entrances[i]);
+            cluster.distances[i] = entranceDistances(cluster);
+        }
+    }
+
+    private void collectEntrances(List<Integer> cells, List<int[]> border, int side, int c) {
+        if (border == null) return;
+        for (int[] transition : border) {
+            int cell = transition[side];
+            if (clusterIndexOf(cell) == c && !cells.contains(cell)) cells.add(cell);
+        }
+    }
+
+    // BFS from cell over walkable cells inside cluster; returns the number of expanded cells.
+    private int localDistances(Cluster cluster, int cell) {
+        bfsRun++;
+        int head = 0, tail = 0;
+        bfsQueue[tail++] = cell;
+        bfsStamp[cell] = bfsRun;
+        bfsDistance[cell] = 0;
+        bfsParent[cell] = -1;
+        while (head < tail) {
+            int current = bfsQueue[head++];
+            int x = current % width;
+            int y = current / width;
+            for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                int nx = x + dir[0];
+                int ny = y + dir[1];
+                if (!cluster.contains(nx, ny) || !pathfinder.isWalkable(grid, nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (bfsStamp[neighbor] == bfsRun) continue;
+                bfsStamp[neighbor] = bfsRun;
+                bfsDistance[neighbor] = bfsDistance[current] + 1;
+                bfsParent[neighbor] = current;
+                bfsQueue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    private int bfsDistanceTo(int cell) {
+        return bfsStamp[cell] == bfsRun ? bfsDistance[cell] : UNREACHABLE;
+    }
+
+    // Distances from the last localDistances() source to each entrance of cluster.
+    private int[] entranceDistances(Cluster cluster) {
+        int[] distances = new int[cluster.entrances.length];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = bfsDistanceTo(cluster.entrances[i]);
+        }
+        return distances;
+    }
+
+    private int clusterIndexOf(int cell) {
+        return (cell / width / clusterSize) * clustersX + (cell % width) / clusterSize;
+    }
+
+    private Cluster clusterOf(int cell) {
+        return clusters[clusterIndexOf(cell)];
+    }
+
+    // Grid cells from a to b, both inside one cluster or on the two sides of a transition.
+    private List<AStarPathfinding.Node> refineStep(int a, int b) {
+        List<AStarPathfinding.Node> cells = new ArrayList<>();
+        Cluster cluster = clusterOf(a);
+        if (cluster != clusterOf(b)) {
+            cells.add(new AStarPathfinding.Node(b % width, b / width, 0, 0, 0));
+            return cells;
+        }
+        localDistances(cluster, a);
+        int length = bfsDistanceTo(b);
+        AStarPathfinding.Node[] nodes = new AStarPathfinding.Node[length];
+        int slot = length - 1;
+        for (int i = b; i != a; i = bfsParent[i]) {
+            nodes[slot--] = new AStarPathfinding.Node(i % width, i / width, 0, 0, 0);
+        }
+        cells.addAll(Arrays.asList(nodes));
+        return cells;
+    }
+
+    // Result of an abstract search: the start, the entrances passed through and the goal.
+    public class HierarchicalPath {
+        private final int[] waypoints;
+        public final int exploredCount;
+
+        HierarchicalPath(int[] waypoints, int exploredCount) {
+            this.waypoints = waypoints;
+            this.exploredCount = exploredCount;
+        }
+
+        public boolean isFound() {
+            return waypoints != null;
+        }
+
+        public int getWaypointCount() {
+            return waypoints == null ? 0 : waypoints.length;
+        }
+
+        public int[] getWaypoint(int index) {
+            int cell = waypoints[index];
+            return new int[]{cell % width, cell / width};
+        }
+
+        // Grid cells from waypoint index (exclusive) to index + 1 (inclusive).
+        public List<AStarPathfinding.Node> refineSegment(int index) {
+            return refineStep(waypoints[index], waypoints[index + 1]);
+        }
+
+        // Refines segments from the start until at least maxCells cells are known, so only
+        // the part of the route that is displayed pays for cell-level paths.
+        public List<AStarPathfinding.Node> refinePrefix(int maxCells) {
+            List<AStarPathfinding.Node> path = new ArrayList<>();
+            if (waypoints == null) return path;
+            path.add(new AStarPathfinding.Node(waypoints[0] % width, waypoints[0] / width, 0, 0, 0));
+            for (int i = 0; i + 1 < waypoints.length && path.size() < maxCells; i++) {
+                path.addAll(refineSegment(i));
+            }
+            for (int k = 1; k < path.size(); k++) {
+                AStarPathfinding.Node node = path.get(k);
+                node.parent = path.get(k - 1);
+                node.gCost = k;
+                node.fCost = k;
+            }
+            return path;
+        }
+
+        public List<AStarPathfinding.Node> refine() {
+            return refinePrefix(Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.vern.vernaduwaste;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A* over flat per-cell arrays indexed by y * width + x. Scratch buffers are reused
+// between searches and reset lazily with a search stamp, so a query allocates only
+// the Nodes of the returned path.
+public class IndexedAStar {
+
+    private final AStarPathfinding pathfinder;
+    private final IndexedMinHeap openSet = new IndexedMinHeap(AStarPathfinding.GRID_SIZE * AStarPathfinding.GRID_SIZE);
+    private float[] gCost = new float[0];
+    private int[] parent = new int[0];
+    // == stamp when gCost/parent are valid for this search. A visited cell that is no
+    // longer queued has been expanded, so no separate closed array is needed.
+    private int[] visitedStamp = new int[0];
+    private int stamp = 0;
+    // The floor being searched, set for the duration of one search: either grid, or model
+    // with optional landmarks.
+    private int[][] grid;
+    private FloorModel model;
+    private LandmarkTable landmarks;
+
+    public IndexedAStar(AStarPathfinding pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
+    public AStarPathfinding.AStarResult search(int[][] grid, int startX, int startY, int goalX, int goalY) {
+        if (!pathfinder.isInBounds(grid, startX, startY) || !pathfinder.isInBounds(grid, goalX, goalY))
+            return new AStarPathfinding.AStarResult(null, 0);
+        if (!pathfinder.isWalkable(grid, startX, startY) || !pathfinder.isWalkable(grid, goalX, goalY))
+            return new AStarPathfinding.AStarResult(null, 0);
+        this.grid = grid;
+        try {
+            return search(grid[0].length, grid.length, startX, startY, goalX, goalY);
+        } finally {
+            this.grid = null;
+        }
+    }
+
+    // Same search over a compiled FloorModel: walkability is a bit test on the packed grid.
+    public AStarPathfinding.AStarResult search(FloorModel model, int startX, int startY, int goalX, int goalY) {
+        return search(model, null, startX, startY, goalX, goalY);
+    }
+
+    // With landmarks (ALT) the heuristic is the landmark lower bound, which is admissible,
+    // so the route is optimal; without them it is the Manhattan estimate.
+    // Ties on f are broken towards larger g when landmarks are used.
+    public AStarPathfinding.AStarResult search(FloorModel model, LandmarkTable landmarks,
+                                               int startX, int startY, int goalX, int goalY) {
+        if (!model.isWalkable(startX, startY) || !model.isWalkable(goalX, goalY))
+            return new AStarPathfinding.AStarResult(null, 0);
+        this.model = model;
+        this.landmarks = landmarks;
+        try {
+            return search(model.getWidth(), model.getHeight(), startX, startY, goalX, goalY);
+        } finally {
+            this.model = null;
+            this.landmarks = null;
+        }
+    }
+
+    private AStarPathfinding.AStarResult search(int width, int height, int startX, int startY, int goalX, int goalY) {
+        prepare(width * height);
+
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        gCost[start] = 0;
+        parent[start] = -1;
+        visitedStamp[start] = stamp;
+        openSet.push(start, landmarks != null ? landmarks.lowerBound(start, goal)
+                : (float) pathfinder.manhattanDistance(startX, startY, goalX, goalY));
+
+        int exploredCount = 0;
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            exploredCount++;
+            if (current == goal) {
+                return new AStarPathfinding.AStarResult(buildPath(goal, width), exploredCount);
+            }
+            int cx = current % width;
+            int cy = current / width;
+            float tentativeG = gCost[current] + 1; // uniform cost
+            for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                int neighbor = ny * width + nx;
+                if (!isWalkable(nx, ny, neighbor)) continue;
+                if (visitedStamp[neighbor] == stamp && tentativeG >= gCost[neighbor])
+                    continue;
+                // Like the classic engine, a cheaper route re-opens an already expanded cell.
+                gCost[neighbor] = tentativeG;
+                parent[neighbor] = current;
+                visitedStamp[neighbor] = stamp;
+                if (landmarks != null) {
+                    // Equal f is common on a uniform grid; prefer the deeper cell so the search
+                    // follows the tight landmark bound instead of widening across the plateau.
+                    openSet.push(neighbor, tentativeG + landmarks.lowerBound(neighbor, goal), -tentativeG);
+                } else {
+                    float h = (float) pathfinder.manhattanDistance(nx, ny, goalX, goalY);
+                    openSet.push(neighbor, tentativeG + h);
+                }
+            }
+        }
+        return new AStarPathfinding.AStarResult(null, exploredCount);
+    }
+
+    // Walkability of an in-bounds cell on whichever floor form is being searched.
+    private boolean isWalkable(int x, int y, int index) {
+        return grid != null ? pathfinder.isWalkable(grid, x, y) : model.isWalkableIndex(index);
+    }
+
+    // Sizes the scratch buffers for cellCount cells and starts a fresh search stamp.
+    private void prepare(int cellCount) {
+        if (gCost.length < cellCount) {
+            gCost = new float[cellCount];
+            parent = new int[cellCount];
+            visitedStamp = new int[cellCount];
+            stamp = 0;
+        }
+        openSet.ensureCapacity(cellCount);
+        openSet.clear();
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    // Walks the parent indices back from the goal and materialises the path start-first.
+    private List<AStarPathfinding.Node> buildPath(int goal, int width) {
+        int length = 0;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            length++;
+        }
+        AStarPathfinding.Node[] nodes = new AStarPathfinding.Node[length];
+        int slot = length - 1;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            nodes[slot--] = new AStarPathfinding.Node(i % width, i / width, 0, gCost[i], 0);
+        }
+        for (int k = 1; k < length; k++) {
+            nodes[k].parent = nodes[k - 1];
+        }
+        return new ArrayList<>(Arrays.asList(nodes));
+    }
+}
@@ -0,0 +1,155 @@
+package com.vern.vernaduwaste;
+
+import java.util.Arrays;
+
+// Binary min-heap over dense int ids (cell indices) with a real decrease-key.
+// Positions are tracked per id so updating a queued cell is O(log n) instead of
+// the O(n) PriorityQueue.remove() the classic A* relies on. Priorities are compared
+// by key, then by an optional secondary key (D* Lite uses both halves of its key).
+public class IndexedMinHeap {
+
+    private int[] heap;      // heap slot -> id
+    private int[] position;  // id -> heap slot, -1 when not queued
+    private float[] keys;    // id -> priority
+    private float[] secondaryKeys; // id -> tie-break priority
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[Math.max(1, capacity)];
+        position = new int[Math.max(1, capacity)];
+        keys = new float[Math.max(1, capacity)];
+        secondaryKeys = new float[Math.max(1, capacity)];
+        Arrays.fill(position, -1);
+    }
+
+    // Grows the backing arrays so ids in [0, capacity) can be queued.
+    public void ensureCapacity(int capacity) {
+        if (capacity <= position.length) return;
+        int oldLength = position.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        secondaryKeys = Arrays.copyOf(secondaryKeys, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, oldLength, capacity, -1);
+    }
+
+    // Empties the heap; only the ids still queued are touched.
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public float peekKey() {
+        return keys[heap[0]];
+    }
+
+    public float peekSecondaryKey() {
+        return secondaryKeys[heap[0]];
+    }
+
+    // Inserts id, or moves it to its new priority when already queued.
+    public void push(int id, float key) {
+        push(id, key, 0f);
+    }
+
+    public void push(int id, float key, float secondaryKey) {
+        int slot = position[id];
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = id;
+            position[id] = slot;
+            keys[id] = key;
+            secondaryKeys[id] = secondaryKey;
+            siftUp(slot);
+        } else {
+            keys[id] = key;
+            secondaryKeys[id] = secondaryKey;
+            siftUp(slot);
+            siftDown(position[id]);
+        }
+    }
+
+    // Removes id if it is queued.
+    public void remove(int id) {
+        int slot = position[id];
+        if (slot < 0) return;
+        position[id] = -1;
+        size--;
+        if (slot < size) {
+            int last = heap[size];
+            heap[slot] = last;
+            position[last] = slot;
+            siftUp(slot);
+            siftDown(position[last]);
+        }
+    }
+
+    // Removes and returns the id with the smallest priority.
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parentId = heap[parentSlot];
+            if (!less(id, parentId)) break;
+            heap[slot] = parentId;
+            position[parentId] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && less(heap[right], heap[child])) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (!less(childId, id)) break;
+            heap[slot] = childId;
+            position[childId] = slot;
+            slot = child;
+        }
+        heap[slot] = id;
+        position[id] = slot;
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && secondaryKeys[a] < secondaryKeys[b]);
+    }
+}
@@ -0,0 +1,194 @@
+package com.vern.vernaduwaste;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Jump Point Search for uniform-cost 8-connected grids. Diagonal moves may cut
+// corners, exactly like aStar(), so the routes are interchangeable. Straight and
+// diagonal runs are skipped over until a forced neighbour or the goal shows up,
+// which keeps the number of expanded cells roughly proportional to the number of
+// obstacle corners rather than to the open area.
+public class JumpPointSearch {
+
+    private final AStarPathfinding pathfinder;
+    private final IndexedMinHeap openSet = new IndexedMinHeap(AStarPathfinding.GRID_SIZE * AStarPathfinding.GRID_SIZE);
+    private float[] gCost = new float[0];
+    private int[] parent = new int[0];
+    private int[] visitedStamp = new int[0];
+    private int stamp = 0;
+
+    // Grid of the running search, cached so the jump loops stay free of argument noise.
+    private int[][] grid;
+    private int width, height;
+    private int goalX, goalY;
+
+    public JumpPointSearch(AStarPathfinding pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
+    public AStarPathfinding.AStarResult search(int[][] grid, int startX, int startY, int goalX, int goalY) {
+        if (!pathfinder.isInBounds(grid, startX, startY) || !pathfinder.isInBounds(grid, goalX, goalY))
+            return new AStarPathfinding.AStarResult(null, 0);
+        if (!pathfinder.isWalkable(grid, startX, startY) || !pathfinder.isWalkable(grid, goalX, goalY))
+            return new AStarPathfinding.AStarResult(null, 0);
+
+        this.grid = grid;
+        this.width = grid[0].length;
+        this.height = grid.length;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        prepare(width * height);
+
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        gCost[start] = 0;
+        parent[start] = -1;
+        visitedStamp[start] = stamp;
+        openSet.push(start, (float) pathfinder.chebyshevDistance(startX, startY, goalX, goalY));
+
+        int exploredCount = 0;
+        try {
+            while (!openSet.isEmpty()) {
+                int current = openSet.poll();
+                exploredCount++;
+                if (current == goal) {
+                    return new AStarPathfinding.AStarResult(buildPath(goal), exploredCount);
+                }
+                expand(current);
+            }
+            return new AStarPathfinding.AStarResult(null, exploredCount);
+        } finally {
+            this.grid = null;
+        }
+    }
+
+    // Pushes every jump point reachable from the pruned neighbour set of current.
+    private void expand(int current) {
+        int x = current % width;
+        int y = current / width;
+        int from = parent[current];
+        if (from < 0) {
+            for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                tryJump(current, x, y, dir[0], dir[1]);
+            }
+            return;
+        }
+        int dx = Integer.signum(x - from % width);
+        int dy = Integer.signum(y - from / width);
+        if (dx != 0 && dy != 0) {
+            tryJump(current, x, y, dx, dy);
+            tryJump(current, x, y, dx, 0);
+            tryJump(current, x, y, 0, dy);
+            if (!walkable(x - dx, y)) tryJump(current, x, y, -dx, dy);
+            if (!walkable(x, y - dy)) tryJump(current, x, y, dx, -dy);
+        } else if (dx != 0) {
+            tryJump(current, x, y, dx, 0);
+            if (!walkable(x, y + 1)) tryJump(current, x, y, dx, 1);
+            if (!walkable(x, y - 1)) tryJump(current, x, y, dx, -1);
+        } else {
+            tryJump(current, x, y, 0, dy);
+            if (!walkable(x + 1, y)) tryJump(current, x, y, 1, dy);
+            if (!walkable(x - 1, y)) tryJump(current, x, y, -1, dy);
+        }
+    }
+
+    private void tryJump(int current, int x, int y, int dx, int dy) {
+        int jumpPoint = (dx != 0 && dy != 0) ? jumpDiagonal(x, y, dx, dy) : jumpStraight(x, y, dx, dy);
+        if (jumpPoint < 0) return;
+        int jx = jumpPoint % width;
+        int jy = jumpPoint / width;
+        // Every step along a jump costs 1, so the run length is the Chebyshev distance.
+        float tentativeG = gCost[current] + (float) pathfinder.chebyshevDistance(x, y, jx, jy);
+        if (visitedStamp[jumpPoint] == stamp && tentativeG >= gCost[jumpPoint]) return;
+        gCost[jumpPoint] = tentativeG;
+        parent[jumpPoint] = current;
+        visitedStamp[jumpPoint] = stamp;
+        openSet.push(jumpPoint, tentativeG + (float) pathfinder.chebyshevDistance(jx, jy, goalX, goalY));
+    }
+
+    // Walks horizontally or vertically from (x, y); returns the first jump point or -1.
+    private int jumpStraight(int x, int y, int dx, int dy) {
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!walkable(x, y)) return -1;
+            if (x == goalX && y == goalY) return y * width + x;
+            if (dx != 0) {
+                if ((walkable(x + dx, y + 1) && !walkable(x, y + 1))
+                        || (walkable(x + dx, y - 1) && !walkable(x, y - 1))) {
+                    return y * width + x;
+                }
+            } else {
+                if ((walkable(x + 1, y + dy) && !walkable(x + 1, y))
+                        || (walkable(x - 1, y + dy) && !walkable(x - 1, y))) {
+                    return y * width + x;
+                }
+            }
+        }
+    }
+
+    // Walks diagonally from (x, y), probing both straight components at every step.
+    private int jumpDiagonal(int x, int y, int dx, int dy) {
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!walkable(x, y)) return -1;
+            if (x == goalX && y == goalY) return y * width + x;
+            if ((walkable(x - dx, y + dy) && !walkable(x - dx, y))
+                    || (walkable(x + dx, y - dy) && !walkable(x, y - dy))) {
+                return y * width + x;
+            }
+            if (jumpStraight(x, y, dx, 0) >= 0 || jumpStraight(x, y, 0, dy) >= 0) {
+                return y * width + x;
+            }
+        }
+    }
+
+    private boolean walkable(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && pathfinder.isWalkable(grid, x, y);
+    }
+
+    private void prepare(int cellCount) {
+        if (gCost.length < cellCount) {
+            gCost = new float[cellCount];
+            parent = new int[cellCount];
+            visitedStamp = new int[cellCount];
+            stamp = 0;
+        }
+        openSet.ensureCapacity(cellCount);
+        openSet.clear();
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    // Expands the jump point chain back into one Node per grid cell, start first.
+    private List<AStarPathfinding.Node> buildPath(int goal) {
+        int length = 1;
+        for (int i = goal; parent[i] >= 0; i = parent[i]) {
+            length += (int) (gCost[i] - gCost[parent[i]]);
+        }
+        AStarPathfinding.Node[] nodes = new AStarPathfinding.Node[length];
+        int slot = length - 1;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            int x = i % width;
+            int y = i / width;
+            nodes[slot--] = new AStarPathfinding.Node(x, y, 0, gCost[i], 0);
+            int p = parent[i];
+            if (p < 0) break;
+            int dx = Integer.signum(p % width - x);
+            int dy = Integer.signum(p / width - y);
+            int steps = (int) (gCost[i] - gCost[p]);
+            for (int s = 1; s < steps; s++) {
+                nodes[slot--] = new AStarPathfinding.Node(x + dx * s, y + dy * s, 0, gCost[i] - s, 0);
+            }
+        }
+        for (int k = 1; k < length; k++) {
+            nodes[k].parent = nodes[k - 1];
+        }
+        return new ArrayList<>(Arrays.asList(nodes));
+    }
+}
@@ -0,0 +1,127 @@
+package com.vern.vernaduwaste;
+
+import java.util.Arrays;
+
+// ALT (A*, landmarks, triangle inequality) heuristic for one floor. A few landmark cells
+// are picked by farthest-point selection and exact BFS step counts from each are stored.
+// For any cell n and goal g, |d(L, g) - d(L, n)| never exceeds the true distance, so the
+// largest such bound (and the Chebyshev distance) is an admissible, consistent heuristic
+// that also sees around the room blocks a straight-line estimate ignores.
+public class LandmarkTable {
+
+    public static final int DEFAULT_LANDMARKS = 8;
+    private static final int UNREACHED = -1;
+
+    // Only the model's width and modCount are kept, not the model itself, so a table held
+    // in a map keyed weakly on its model does not keep that model alive.
+    private final int width;
+    private final int modCount;
+    private final int[] landmarks;
+    private final int[][] distances; // [landmark][cell], UNREACHED when not connected
+
+    private LandmarkTable(FloorModel model, int[] landmarks, int[][] distances) {
+        this.width = model.getWidth();
+        this.modCount = model.getModCount();
+        this.landmarks = landmarks;
+        this.distances = distances;
+    }
+
+    // Picks up to landmarkCount landmarks. The first is the cell farthest from an arbitrary
+    // walkable cell; each next one is the cell farthest from all landmarks chosen so far,
+    // with cells no landmark reaches counted as infinitely far so every component gets one.
+    public static LandmarkTable build(FloorModel model, int landmarkCount) {
+        int cellCount = model.getWidth() * model.getHeight();
+        int[] queue = new int[cellCount];
+        int[] nearest = new int[cellCount];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int[] chosen = new int[landmarkCount];
+        int[][] tables = new int[landmarkCount][];
+        int seed = -1;
+        for (int i = 0; i < cellCount && seed < 0; i++) {
+            if (model.isWalkableIndex(i)) seed = i;
+        }
+        if (seed < 0) {
+            return new LandmarkTable(model, new int[0], new int[0][]);
+        }
+        int count = 0;
+        int candidate = farthest(bfs(model, seed, queue), model);
+        while (count < landmarkCount && candidate >= 0) {
+            int[] table = bfs(model, candidate, queue);
+            chosen[count] = candidate;
+            tables[count] = table;
+            count++;
+            candidate = -1;
+            int best = 0;
+            for (int i = 0; i < cellCount; i++) {
+                if (!model.isWalkableIndex(i)) continue;
+                if (table[i] != UNREACHED) nearest[i] = Math.min(nearest[i], table[i]);
+                if (nearest[i] > best) {
+                    best = nearest[i];
+                    candidate = i;
+                }
+            }
+        }
+        return new LandmarkTable(model, Arrays.copyOf(chosen, count), Arrays.copyOf(tables, count));
+    }
+
+    // False once model, the floor the table was built for, has changed since.
+    public boolean isCurrent(FloorModel model) {
+        return model.getModCount() == modCount;
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    // Cell index (y * width + x) of landmark i.
+    public int getLandmark(int i) {
+        return landmarks[i];
+    }
+
+    // Admissible estimate of the steps from cell to goal (both cell indices).
+    public float lowerBound(int cell, int goal) {
+        int best = Math.max(Math.abs(cell % width - goal % width), Math.abs(cell / width - goal / width));
+        for (int[] table : distances) {
+            int toGoal = table[goal];
+            int toCell = table[cell];
+            if (toGoal == UNREACHED || toCell == UNREACHED) continue;
+            best = Math.max(best, Math.abs(toGoal - toCell));
+        }
+        return best;
+    }
+
+    // Uniform-cost 8-connected step counts from source to every cell.
+    private static int[] bfs(FloorModel model, int source, int[] queue) {
+        int width = model.getWidth();
+        int[] distance = new int[width * model.getHeight()];
+        Arrays.fill(distance, UNREACHED);
+        int head = 0;
+        int tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            int cx = current % width;
+            int cy = current / width;
+            for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                if (!model.isInBounds(nx, ny)) continue;
+                int neighbor = ny * width + nx;
+                if (distance[neighbor] == UNREACHED && model.isWalkableIndex(neighbor)) {
+                    distance[neighbor] = distance[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static int farthest(int[] distance, FloorModel model) {
+        int best = -1;
+        for (int i = 0; i < distance.length; i++) {
+            if (model.isWalkableIndex(i) && (best < 0 || distance[i] > distance[best])) best = i;
+        }
+        return best;
+    }
+}
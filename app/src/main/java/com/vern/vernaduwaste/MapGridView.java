@@ -1,10 +1,13 @@
 package com.vern.vernaduwaste;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.GestureDetector;
@@ -20,9 +23,21 @@ import java.util.List;
 
 public class MapGridView extends View {
     private static final String TAG = "MapGridView";
-    private int[][] mapGrid;
+    private FloorModel floorModel;
     private Paint walkablePaint, inaccessiblePaint, stairsPaint, roomsPaint;
-    private Paint markerPaint, deviceMarkerPaint, selectedMarkerPaint;
+    // Indexed by cell type.
+    private Paint[] cellPaints;
+    // Pre-rendered cell layer of the floor on screen, re-rendered when the floor or its
+    // cells change. Only one is kept: switching floors costs one render, while keeping
+    // every floor's bitmaps would hold them, and their models, for as long as the view.
+    private FloorLayer currentLayer;
+    private final Paint layerPaint = new Paint();
+    private final RectF layerBounds = new RectF();
+    private final Rect layerSource = new Rect();
+    private final RectF layerTarget = new RectF();
+    // Part of the map inside the view, in unscaled map coordinates; updated every frame.
+    private final RectF visibleBounds = new RectF();
+    private Paint markerPaint, deviceMarkerPaint, selectedMarkerPaint, stairMarkerPaint;
     private Paint pathActivePaint;
     private final int cellSize = 32;
     private float scaleFactor = 1.0f;
@@ -40,7 +55,17 @@ public class MapGridView extends View {
     private final GestureDetector gestureDetector;
 
     private MarkerClickListener markerClickListener;
-    private List<int[]> activePath;
+    // Route pieces on the floor shown; a route that leaves the floor and comes back has several.
+    private List<List<int[]>> activePaths;
+    // Overlay geometry in map coordinates, rebuilt only when the route, the floor or the
+    // arrow size changes, so onDraw allocates nothing while panning and zooming.
+    private final Path routePath = new Path();
+    private final RectF routeBounds = new RectF();
+    private final Path arrowPath = new Path();
+    // Optional view carrying the device arrow; when set the arrow is moved with view
+    // properties instead of being redrawn with the map.
+    private DeviceArrowView deviceArrowView;
+    private final Runnable deviceArrowUpdater = this::updateDeviceArrow;
 
     private int deviceFloor = -1;
     private int currentFloor = -1;
@@ -56,6 +81,7 @@ public class MapGridView extends View {
     public MapGridView(@NonNull Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
         initPaints();
+        buildArrowPath();
         scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
         gestureDetector = new GestureDetector(context, new GestureListener());
     }
@@ -65,6 +91,9 @@ public class MapGridView extends View {
         inaccessiblePaint = createPaint("#c8c8c8");
         stairsPaint = createPaint("#e8b931");
         roomsPaint = createPaint("#e7e8ec");
+        cellPaints = new Paint[]{walkablePaint, inaccessiblePaint, stairsPaint, roomsPaint};
+        // Nearest-neighbour scaling keeps cell edges sharp at every zoom level.
+        layerPaint.setFilterBitmap(false);
 
         markerPaint = new Paint();
         markerPaint.setColor(Color.parseColor("#4CAF50"));
@@ -78,6 +107,10 @@ public class MapGridView extends View {
         deviceMarkerPaint.setColor(Color.parseColor("#329eda"));
         deviceMarkerPaint.setStyle(Paint.Style.FILL);
 
+        stairMarkerPaint = new Paint();
+        stairMarkerPaint.setColor(Color.parseColor("#FF5722"));
+        stairMarkerPaint.setStyle(Paint.Style.FILL);
+
         pathActivePaint = new Paint();
         pathActivePaint.setColor(Color.parseColor("#FF0000"));
         pathActivePaint.setStyle(Paint.Style.STROKE);
@@ -86,23 +119,43 @@ public class MapGridView extends View {
         pathActivePaint.setStrokeJoin(Paint.Join.ROUND);
     }
 
+    // Device arrow pointing up, centred on the origin; onDraw moves and rotates it in place.
+    private void buildArrowPath() {
+        DeviceArrowView.buildArrow(arrowPath, cellSize);
+    }
+
+    // Hands the device arrow to a view stacked above this one, so orientation and location
+    // updates no longer redraw the map.
+    public void setDeviceArrowView(DeviceArrowView view) {
+        deviceArrowView = view;
+        if (view != null) view.setArrowSize(cellSize);
+        updateDeviceArrow();
+        invalidate();
+    }
+
     private Paint createPaint(String color) {
         Paint paint = new Paint();
         paint.setColor(Color.parseColor(color));
         return paint;
     }
 
-    public void setMapGrid(int[][] mapGrid, int deviceFloor) {
-        this.mapGrid = mapGrid;
+    public void setFloorModel(FloorModel floorModel, int deviceFloor) {
+        this.floorModel = floorModel;
         this.deviceFloor = deviceFloor;
+        if (floorModel != null) {
+            layerBounds.set(0, 0, floorModel.getWidth() * cellSize, floorModel.getHeight() * cellSize);
+        }
+        rebuildRoutePath();
         isInitialSetup = true;
         invalidate();
-        Log.d(TAG, "Map grid set with deviceFloor: " + deviceFloor);
+        updateDeviceArrow();
+        Log.d(TAG, "Floor model set with deviceFloor: " + deviceFloor);
     }
 
     public void setCurrentFloor(int currentFloor) {
         this.currentFloor = currentFloor;
         invalidate();
+        updateDeviceArrow();
         Log.d(TAG, "Current floor set to: " + currentFloor);
     }
 
@@ -113,7 +166,7 @@ public class MapGridView extends View {
     }
 
     public void addMarkerPosition(int x, int y) {
-        if (mapGrid != null && x >= 0 && y >= 0 && x < mapGrid[0].length && y < mapGrid.length) {
+        if (floorModel != null && floorModel.isInBounds(x, y)) {
             markers.add(new int[]{x, y});
             invalidate();
             Log.d(TAG, "Marker added at (" + x + ", " + y + ")");
@@ -123,10 +176,11 @@ public class MapGridView extends View {
     }
 
     public void addDeviceMarkerPosition(int x, int y) {
-        if (mapGrid != null && x >= 0 && y >= 0 && x < mapGrid[0].length && y < mapGrid.length) {
+        if (floorModel != null && floorModel.isInBounds(x, y)) {
             if (currentFloor == deviceFloor) {
+                if (deviceMarker != null && deviceMarker[0] == x && deviceMarker[1] == y) return;
                 deviceMarker = new int[]{x, y};
-                invalidate();
+                onDeviceArrowChanged();
                 Log.d(TAG, "Device marker added at (" + x + ", " + y + ") on floor " + currentFloor);
             } else {
                 Log.d(TAG, "Device marker not added as currentFloor (" + currentFloor + ") != deviceFloor (" + deviceFloor + ")");
@@ -139,11 +193,23 @@ public class MapGridView extends View {
     public void removeDeviceMarker() {
         if (deviceMarker != null) {
             deviceMarker = null;
-            invalidate();
+            onDeviceArrowChanged();
             Log.d(TAG, "Device marker removed from the map.");
         }
     }
 
+    // Highlights the marker at (x, y), if one is shown, without notifying the click listener.
+    public void selectMarker(int x, int y) {
+        for (int[] marker : markers) {
+            if (marker[0] == x && marker[1] == y) {
+                selectedMarker = marker;
+                invalidate();
+                Log.d(TAG, "Marker at (" + x + ", " + y + ") selected.");
+                return;
+            }
+        }
+    }
+
     public void deselectMarker() {
         if (selectedMarker != null) {
             selectedMarker = null;
@@ -152,20 +218,61 @@ public class MapGridView extends View {
         }
     }
 
+    // Called for every rotation sensor event, so it does no logging and skips repeats.
     public void setDeviceOrientation(float orientation) {
+        if (orientation == deviceOrientation) return;
         this.deviceOrientation = orientation;
-        invalidate();
-        Log.d(TAG, "Device orientation set to " + orientation + " degrees.");
+        onDeviceArrowChanged();
+    }
+
+    private void onDeviceArrowChanged() {
+        if (deviceArrowView != null) {
+            updateDeviceArrow();
+        } else {
+            invalidate();
+        }
+    }
+
+    // Places the arrow view over the device cell at the current pan, zoom and heading, or
+    // hides it when the device is not on the floor shown.
+    private void updateDeviceArrow() {
+        if (deviceArrowView == null) return;
+        boolean visible = floorModel != null && deviceMarker != null && currentFloor == deviceFloor
+                && !isInitialSetup && isShown();
+        deviceArrowView.setVisibility(visible ? VISIBLE : INVISIBLE);
+        if (!visible) return;
+        float half = deviceArrowView.getArrowSize() / 2f;
+        float centerX = deviceMarker[0] * cellSize + cellSize / 2f;
+        float centerY = (floorModel.getHeight() - deviceMarker[1] - 1) * cellSize + cellSize / 2f;
+        deviceArrowView.setTranslationX(getLeft() - deviceArrowView.getLeft() + offsetX + centerX * scaleFactor - half);
+        deviceArrowView.setTranslationY(getTop() - deviceArrowView.getTop() + offsetY + centerY * scaleFactor - half);
+        deviceArrowView.setScaleX(scaleFactor);
+        deviceArrowView.setScaleY(scaleFactor);
+        deviceArrowView.setRotation(-deviceOrientation);
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateDeviceArrow();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        updateDeviceArrow();
     }
 
-    public void setPath(List<int[]> path) {
-        this.activePath = path;
+    public void setPaths(List<List<int[]>> paths) {
+        this.activePaths = paths;
+        rebuildRoutePath();
         invalidate();
-        Log.d(TAG, "Active navigation path set.");
+        Log.d(TAG, "Active navigation path set with " + paths.size() + " piece(s).");
     }
 
     public void clearPaths() {
-        activePath = null;
+        activePaths = null;
+        rebuildRoutePath();
         invalidate();
         Log.d(TAG, "Paths cleared.");
     }
@@ -173,112 +280,152 @@ public class MapGridView extends View {
     @Override
     protected void onDraw(@NonNull Canvas canvas) {
         super.onDraw(canvas);
-        if (mapGrid == null) return;
+        if (floorModel == null) return;
 
         if (isInitialSetup) {
             setupInitialScaleAndPosition();
             isInitialSetup = false;
+            // Not from inside this draw pass: moving the arrow view invalidates the parent.
+            post(deviceArrowUpdater);
         }
 
         canvas.save();
         canvas.translate(offsetX, offsetY);
         canvas.scale(scaleFactor, scaleFactor);
 
-        for (int y = 0; y < mapGrid.length; y++) {
-            for (int x = 0; x < mapGrid[y].length; x++) {
-                Paint paint = getPaintForCell(mapGrid[y][x]);
-                float left = x * cellSize;
-                float top = (mapGrid.length - y - 1) * cellSize;
-                canvas.drawRect(left, top, left + cellSize, top + cellSize, paint);
-            }
-        }
+        updateVisibleBounds();
+        drawFloorLayer(canvas);
 
-        if (activePath != null && activePath.size() > 1) {
-            Path drawPath = new Path();
-            boolean first = true;
-            for (int[] point : activePath) {
-                float x = point[0] * cellSize + cellSize / 2f;
-                float y = (mapGrid.length - point[1] - 1) * cellSize + cellSize / 2f;
-                if (first) {
-                    drawPath.moveTo(x, y);
-                    first = false;
-                } else {
-                    drawPath.lineTo(x, y);
-                }
-            }
-            canvas.drawPath(drawPath, pathActivePaint);
-            Log.d(TAG, "Active navigation path drawn.");
+        if (!routePath.isEmpty() && RectF.intersects(routeBounds, visibleBounds)) {
+            canvas.drawPath(routePath, pathActivePaint);
         }
 
-        for (int[] marker : markers) {
+        for (int i = 0; i < markers.size(); i++) {
+            int[] marker = markers.get(i);
             boolean isSelected = selectedMarker != null && marker[0] == selectedMarker[0] && marker[1] == selectedMarker[1];
             drawMarker(canvas, marker[0], marker[1], isSelected);
         }
 
-        if (deviceMarker != null && currentFloor == deviceFloor) {
+        if (deviceArrowView == null && deviceMarker != null && currentFloor == deviceFloor) {
             drawDeviceMarker(canvas, deviceMarker[0], deviceMarker[1]);
         }
 
         canvas.restore();
     }
 
-    private Paint getPaintForCell(int cellType) {
-        switch (cellType) {
-            case 0:
-                return walkablePaint;
-            case 1:
-                return inaccessiblePaint;
-            case 2:
-                return stairsPaint;
-            case 3:
-                return roomsPaint;
-            default:
-                return inaccessiblePaint;
+    // Map area the view currently shows, from the pan offset and zoom.
+    private void updateVisibleBounds() {
+        visibleBounds.set(-offsetX / scaleFactor, -offsetY / scaleFactor,
+                (getWidth() - offsetX) / scaleFactor, (getHeight() - offsetY) / scaleFactor);
+    }
+
+    // Draws only the visible part of the cell layer, at the coarsest level of detail that
+    // still leaves at least one screen pixel per block.
+    private void drawFloorLayer(Canvas canvas) {
+        FloorLayer layer = getFloorLayer();
+        float cellsPerPixel = 1f / (cellSize * scaleFactor);
+        int level = 0;
+        while ((2 << level) <= cellsPerPixel) level++;
+        Bitmap bitmap = layer.getBitmap(level);
+        float blockSpan = layer.getBlockSize(level) * cellSize;
+        int left = Math.max(0, (int) Math.floor(visibleBounds.left / blockSpan));
+        int top = Math.max(0, (int) Math.floor(visibleBounds.top / blockSpan));
+        int right = Math.min(bitmap.getWidth(), (int) Math.ceil(visibleBounds.right / blockSpan));
+        int bottom = Math.min(bitmap.getHeight(), (int) Math.ceil(visibleBounds.bottom / blockSpan));
+        if (left >= right || top >= bottom) return;
+        layerSource.set(left, top, right, bottom);
+        layerTarget.set(left * blockSpan, top * blockSpan, right * blockSpan, bottom * blockSpan);
+        canvas.save();
+        canvas.clipRect(layerBounds);
+        canvas.drawBitmap(bitmap, layerSource, layerTarget, layerPaint);
+        canvas.restore();
+    }
+
+    // Whether anything drawn in cell (x, y), reaching at most one cell beyond it, can be seen.
+    private boolean isCellVisible(int x, int y) {
+        float left = x * cellSize;
+        float top = (floorModel.getHeight() - y - 1) * cellSize;
+        return left + 2 * cellSize >= visibleBounds.left && left - cellSize <= visibleBounds.right
+                && top + 2 * cellSize >= visibleBounds.top && top - cellSize <= visibleBounds.bottom;
+    }
+
+    // Route through the cell centres of each piece of activePaths, the pieces drawn unjoined;
+    // empty when there is nothing to draw. The bounds are padded by the stroke so a route
+    // along the view edge is not culled.
+    private void rebuildRoutePath() {
+        routePath.rewind();
+        if (floorModel == null || activePaths == null) return;
+        for (List<int[]> piece : activePaths) {
+            if (piece.size() < 2) continue;
+            for (int i = 0; i < piece.size(); i++) {
+                int[] point = piece.get(i);
+                float x = point[0] * cellSize + cellSize / 2f;
+                float y = (floorModel.getHeight() - point[1] - 1) * cellSize + cellSize / 2f;
+                if (i == 0) {
+                    routePath.moveTo(x, y);
+                } else {
+                    routePath.lineTo(x, y);
+                }
+            }
+        }
+        if (routePath.isEmpty()) return;
+        routePath.computeBounds(routeBounds, true);
+        float stroke = pathActivePaint.getStrokeWidth();
+        routeBounds.inset(-stroke, -stroke);
+    }
+
+    // The cached layer of the floor on screen, rendered on first use, after a floor switch or
+    // after a cell changed. The previous layer's bitmaps are released straight away.
+    private FloorLayer getFloorLayer() {
+        if (currentLayer != null && currentLayer.isCurrent(floorModel)) return currentLayer;
+        if (currentLayer != null) currentLayer.recycle();
+        currentLayer = FloorLayer.render(floorModel, cellPaints);
+        Log.d(TAG, "Floor layer rendered for floor " + floorModel.getFloor());
+        return currentLayer;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (currentLayer != null) {
+            currentLayer.recycle();
+            currentLayer = null;
         }
     }
 
     private void drawMarker(Canvas canvas, int x, int y, boolean isSelected) {
-        if (x >= 0 && x < mapGrid[0].length && y >= 0 && y < mapGrid.length) {
+        if (floorModel.isInBounds(x, y) && isCellVisible(x, y)) {
             float centerX = x * cellSize + cellSize / 2f;
-            float centerY = (mapGrid.length - y - 1) * cellSize + cellSize / 2f;
+            float centerY = (floorModel.getHeight() - y - 1) * cellSize + cellSize / 2f;
             float radius;
             Paint paint;
-            if (mapGrid[y][x] == 2) {
+            if (floorModel.getType(x, y) == FloorModel.STAIRS) {
                 radius = cellSize / 3f;
-                paint = new Paint();
-                paint.setColor(Color.parseColor("#FF5722"));
-                paint.setStyle(Paint.Style.FILL);
+                paint = stairMarkerPaint;
             } else {
                 radius = isSelected ? cellSize / 2f : cellSize / 4f;
                 paint = isSelected ? selectedMarkerPaint : markerPaint;
             }
             canvas.drawCircle(centerX, centerY, radius, paint);
-            Log.d(TAG, "Marker drawn at (" + x + ", " + y + "), Selected: " + isSelected + ", CellType: " + mapGrid[y][x]);
         }
     }
 
     private void drawDeviceMarker(Canvas canvas, int x, int y) {
-        if (x >= 0 && x < mapGrid[0].length && y >= 0 && y < mapGrid.length) {
+        if (floorModel.isInBounds(x, y) && isCellVisible(x, y)) {
             float centerX = x * cellSize + cellSize / 2f;
-            float centerY = (mapGrid.length - y - 1) * cellSize + cellSize / 2f;
+            float centerY = (floorModel.getHeight() - y - 1) * cellSize + cellSize / 2f;
             canvas.save();
             canvas.translate(centerX, centerY);
             canvas.rotate(-deviceOrientation);
-            Path arrowPath = new Path();
-            arrowPath.moveTo(0, -cellSize / 2f);
-            arrowPath.lineTo(cellSize / 2f, cellSize / 2f);
-            arrowPath.lineTo(-cellSize / 2f, cellSize / 2f);
-            arrowPath.close();
             canvas.drawPath(arrowPath, deviceMarkerPaint);
             canvas.restore();
-            Log.d(TAG, "Device marker drawn at (" + x + ", " + y + ") with orientation " + deviceOrientation + " degrees.");
         }
     }
 
     private void setupInitialScaleAndPosition() {
-        if (mapGrid == null || mapGrid.length == 0) return;
-        int gridWidth = mapGrid[0].length * cellSize;
-        int gridHeight = mapGrid.length * cellSize;
+        if (floorModel == null || floorModel.getHeight() == 0) return;
+        int gridWidth = floorModel.getWidth() * cellSize;
+        int gridHeight = floorModel.getHeight() * cellSize;
         float scaleX = (float) getWidth() / gridWidth;
         float scaleY = (float) getHeight() / gridHeight;
         scaleFactor = Math.max(scaleX, scaleY);
@@ -315,7 +462,7 @@ public class MapGridView extends View {
             offsetX = (offsetX - focusX) * scaleChange + focusX;
             offsetY = (offsetY - focusY) * scaleChange + focusY;
             invalidate();
-            Log.d(TAG, "Scaling: New scaleFactor: " + scaleFactor);
+            updateDeviceArrow();
             return true;
         }
     }
@@ -326,7 +473,7 @@ public class MapGridView extends View {
             float x = (event.getX() - offsetX) / scaleFactor;
             float y = (event.getY() - offsetY) / scaleFactor;
             int cellX = (int) (x / cellSize);
-            int cellY = mapGrid.length - 1 - (int) (y / cellSize);
+            int cellY = floorModel.getHeight() - 1 - (int) (y / cellSize);
             for (int[] marker : markers) {
                 if (marker[0] == cellX && marker[1] == cellY) {
                     selectedMarker = marker;
@@ -354,7 +501,7 @@ public class MapGridView extends View {
             offsetX = clamp(offsetX - distanceX, getMinOffsetX(), getMaxOffsetX());
             offsetY = clamp(offsetY - distanceY, getMinOffsetY(), getMaxOffsetY());
             invalidate();
-            Log.d(TAG, "Scrolling: New OffsetX: " + offsetX + ", OffsetY: " + offsetY);
+            updateDeviceArrow();
             return true;
         }
     }
@@ -364,7 +511,7 @@ public class MapGridView extends View {
     }
 
     private float getMinOffsetX() {
-        float scaledWidth = mapGrid[0].length * cellSize * scaleFactor;
+        float scaledWidth = floorModel.getWidth() * cellSize * scaleFactor;
         if (scaledWidth <= getWidth()) {
             return (getWidth() - scaledWidth) / 2;
         }
@@ -372,7 +519,7 @@ public class MapGridView extends View {
     }
 
     private float getMaxOffsetX() {
-        float scaledWidth = mapGrid[0].length * cellSize * scaleFactor;
+        float scaledWidth = floorModel.getWidth() * cellSize * scaleFactor;
         if (scaledWidth <= getWidth()) {
             return (getWidth() - scaledWidth) / 2;
         }
@@ -380,7 +527,7 @@ public class MapGridView extends View {
     }
 
     private float getMinOffsetY() {
-        float scaledHeight = mapGrid.length * cellSize * scaleFactor;
+        float scaledHeight = floorModel.getHeight() * cellSize * scaleFactor;
         if (scaledHeight <= getHeight()) {
             return (getHeight() - scaledHeight) / 2;
         }
@@ -388,7 +535,7 @@ public class MapGridView extends View {
     }
 
     private float getMaxOffsetY() {
-        float scaledHeight = mapGrid.length * cellSize * scaleFactor;
+        float scaledHeight = floorModel.getHeight() * cellSize * scaleFactor;
         if (scaledHeight <= getHeight()) {
             return (getHeight() - scaledHeight) / 2;
         }
@@ -0,0 +1,254 @@
+package com.vern.vernaduwaste;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// The floors of a building as a single graph over (floor, x, y). Every floor gets a
+// contiguous block of node ids (base + y * width + x). Inside a floor the usual
+// 8-connected moves apply; a stair cell is additionally linked to the stair cell at
+// the same (x, y) on the floor directly above and below, so every shared stair is an
+// edge and a search can pass through any number of intermediate floors.
+// isReachable() answers from the floors' component labels joined through the stair links,
+// so a search is only started when the goal can actually be reached.
+public class MultiFloorGraph {
+
+    // Cost of moving between two floors on a stair, in grid steps.
+    public static final float STAIR_COST = 1f;
+    // Upper bound on neighbors(): 8 planar moves plus one stair up and one down.
+    public static final int MAX_NEIGHBORS = 10;
+
+    private final int[] floors;   // floor numbers, ascending
+    private final FloorModel[] models;
+    private final int[] base;     // first node id of each floor slot
+    private final int[] widths;
+    private final int[] heights;
+    private final int nodeCount;
+    // Published as a whole so concurrent searches read it without locking.
+    private volatile Reachability reachability;
+
+    // Compiles each grid into a FloorModel first; the grids themselves are not retained.
+    public MultiFloorGraph(Map<Integer, int[][]> floorGrids) {
+        this(compileAll(floorGrids));
+    }
+
+    public MultiFloorGraph(Collection<FloorModel> floorModels) {
+        models = floorModels.toArray(new FloorModel[0]);
+        Arrays.sort(models, (a, b) -> Integer.compare(a.getFloor(), b.getFloor()));
+        floors = new int[models.length];
+        base = new int[models.length];
+        widths = new int[models.length];
+        heights = new int[models.length];
+        int next = 0;
+        for (int slot = 0; slot < models.length; slot++) {
+            floors[slot] = models[slot].getFloor();
+            heights[slot] = models[slot].getHeight();
+            widths[slot] = models[slot].getWidth();
+            base[slot] = next;
+            next += widths[slot] * heights[slot];
+        }
+        nodeCount = next;
+        reachability = buildReachability();
+    }
+
+    private static List<FloorModel> compileAll(Map<Integer, int[][]> floorGrids) {
+        List<FloorModel> compiled = new ArrayList<>(floorGrids.size());
+        for (Map.Entry<Integer, int[][]> entry : floorGrids.entrySet()) {
+            compiled.add(FloorModel.compile(entry.getKey(), entry.getValue()));
+        }
+        return compiled;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int[] getFloors() {
+        return floors.clone();
+    }
+
+    // The model is shared: cells changed through it are seen by every search over this graph.
+    public FloorModel getModel(int floor) {
+        int slot = slotOfFloor(floor);
+        return slot < 0 ? null : models[slot];
+    }
+
+    // Node id of (floor, x, y), or -1 when the floor is unknown or the cell out of bounds.
+    public int nodeId(int floor, int x, int y) {
+        int slot = slotOfFloor(floor);
+        if (slot < 0 || x < 0 || y < 0 || x >= widths[slot] || y >= heights[slot]) return -1;
+        return base[slot] + y * widths[slot] + x;
+    }
+
+    public int floorOf(int node) {
+        return floors[slotOfNode(node)];
+    }
+
+    public int xOf(int node) {
+        int slot = slotOfNode(node);
+        return (node - base[slot]) % widths[slot];
+    }
+
+    public int yOf(int node) {
+        int slot = slotOfNode(node);
+        return (node - base[slot]) / widths[slot];
+    }
+
+    // Walkable if cell is 0 (walkable) or 2 (stairs), as in AStarPathfinding.
+    public boolean isWalkable(int node) {
+        int slot = slotOfNode(node);
+        return models[slot].isWalkableIndex(node - base[slot]);
+    }
+
+    // True when a route between the two nodes exists. O(1) unless a floor changed since the
+    // last query, in which case only the stair links between components are re-joined.
+    public boolean isReachable(int from, int to) {
+        if (!isWalkable(from) || !isWalkable(to)) return false;
+        Reachability current = reachability;
+        if (!current.isCurrent()) {
+            current = refreshReachability();
+        }
+        return current.componentOf(from) == current.componentOf(to);
+    }
+
+    private synchronized Reachability refreshReachability() {
+        if (!reachability.isCurrent()) {
+            reachability = buildReachability();
+        }
+        return reachability;
+    }
+
+    // Union-find over every floor-local component, joined wherever two adjacent floors
+    // share a stair cell.
+    private Reachability buildReachability() {
+        int[] labelBase = new int[models.length];
+        int[] modCounts = new int[models.length];
+        int total = 0;
+        for (int slot = 0; slot < models.length; slot++) {
+            labelBase[slot] = total;
+            total += models[slot].getComponentLabelLimit();
+            modCounts[slot] = models[slot].getModCount();
+        }
+        int[] parent = new int[total];
+        for (int i = 0; i < total; i++) {
+            parent[i] = i;
+        }
+        for (int slot = 0; slot + 1 < models.length; slot++) {
+            if (floors[slot + 1] - floors[slot] != 1) continue;
+            FloorModel lower = models[slot];
+            FloorModel upper = models[slot + 1];
+            for (int[] stair : lower.getStairs()) {
+                int x = stair[0];
+                int y = stair[1];
+                if (!upper.isInBounds(x, y) || upper.getType(x, y) != FloorModel.STAIRS) continue;
+                int a = find(parent, labelBase[slot] + lower.getComponent(x, y));
+                int b = find(parent, labelBase[slot + 1] + upper.getComponent(x, y));
+                if (a != b) parent[a] = b;
+            }
+        }
+        for (int i = 0; i < total; i++) {
+            parent[i] = find(parent, i);
+        }
+        return new Reachability(parent, labelBase, modCounts);
+    }
+
+    // Building-wide component of each floor-local component label, offset per slot, and
+    // the floor mod counts it was built from.
+    private class Reachability {
+        final int[] component;
+        final int[] labelBase;
+        final int[] modCounts;
+
+        Reachability(int[] component, int[] labelBase, int[] modCounts) {
+            this.component = component;
+            this.labelBase = labelBase;
+            this.modCounts = modCounts;
+        }
+
+        boolean isCurrent() {
+            for (int slot = 0; slot < models.length; slot++) {
+                if (models[slot].getModCount() != modCounts[slot]) return false;
+            }
+            return true;
+        }
+
+        int componentOf(int node) {
+            int slot = slotOfNode(node);
+            return component[labelBase[slot] + models[slot].getComponentIndex(node - base[slot])];
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // Writes the walkable neighbours of node into out and returns how many there are.
+    // Planar moves cost 1; the cost of the move to out[i] is edgeCost(node, out[i]).
+    public int neighbors(int node, int[] out) {
+        int slot = slotOfNode(node);
+        int width = widths[slot];
+        int height = heights[slot];
+        FloorModel model = models[slot];
+        int local = node - base[slot];
+        int x = local % width;
+        int y = local / width;
+        int count = 0;
+        for (int[] dir : AStarPathfinding.DIRECTIONS) {
+            int nx = x + dir[0];
+            int ny = y + dir[1];
+            if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+            int neighbor = ny * width + nx;
+            if (model.isWalkableIndex(neighbor)) {
+                out[count++] = base[slot] + neighbor;
+            }
+        }
+        if (model.getTypeIndex(local) == FloorModel.STAIRS) {
+            count = addStairLink(slot, slot - 1, x, y, out, count);
+            count = addStairLink(slot, slot + 1, x, y, out, count);
+        }
+        return count;
+    }
+
+    public float edgeCost(int from, int to) {
+        return slotOfNode(from) == slotOfNode(to) ? 1f : STAIR_COST;
+    }
+
+    // Lower bound on the remaining cost from node to (goalFloor, goalX, goalY).
+    public float heuristic(int node, int goalFloor, int goalX, int goalY) {
+        int slot = slotOfNode(node);
+        int local = node - base[slot];
+        int x = local % widths[slot];
+        int y = local / widths[slot];
+        int planar = Math.max(Math.abs(x - goalX), Math.abs(y - goalY));
+        return planar + Math.abs(floors[slot] - goalFloor) * STAIR_COST;
+    }
+
+    private int addStairLink(int slot, int otherSlot, int x, int y, int[] out, int count) {
+        if (otherSlot < 0 || otherSlot >= floors.length) return count;
+        if (Math.abs(floors[otherSlot] - floors[slot]) != 1) return count;
+        if (x >= widths[otherSlot] || y >= heights[otherSlot]) return count;
+        if (models[otherSlot].getType(x, y) != FloorModel.STAIRS) return count;
+        out[count++] = base[otherSlot] + y * widths[otherSlot] + x;
+        return count;
+    }
+
+    private int slotOfFloor(int floor) {
+        int slot = Arrays.binarySearch(floors, floor);
+        return slot >= 0 ? slot : -1;
+    }
+
+    private int slotOfNode(int node) {
+        int slot = floors.length - 1;
+        // Linear scan: buildings have a handful of floors. Empty floors own no ids.
+        while (slot > 0 && (base[slot] > node || widths[slot] * heights[slot] == 0)) {
+            slot--;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,222 @@
+package com.vern.vernaduwaste;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// A* over a MultiFloorGraph. One search considers every stair on every floor and
+// returns the optimal route, split into per-floor segments. Scratch buffers are
+// reused between searches in the same way as IndexedAStar. A search run on a thread that
+// gets interrupted, e.g. by RoutingExecutor superseding it, stops with a
+// CancellationException instead of running to completion.
+public class MultiFloorSearch {
+
+    // The interrupt flag is checked once every this many + 1 expansions, starting with the first.
+    private static final int INTERRUPT_CHECK_MASK = 1023;
+
+    private final MultiFloorGraph graph;
+    private final IndexedMinHeap openSet;
+    private final float[] gCost;
+    private final int[] parent;
+    private final int[] visitedStamp;
+    private final int[] neighborBuffer = new int[MultiFloorGraph.MAX_NEIGHBORS];
+    private int stamp = 0;
+    private int exploredCount = 0;
+
+    public MultiFloorSearch(MultiFloorGraph graph) {
+        this.graph = graph;
+        int nodeCount = graph.getNodeCount();
+        openSet = new IndexedMinHeap(nodeCount);
+        gCost = new float[nodeCount];
+        parent = new int[nodeCount];
+        visitedStamp = new int[nodeCount];
+    }
+
+    public MultiFloorGraph getGraph() {
+        return graph;
+    }
+
+    public AStarPathfinding.PathResult findPath(int startFloor, int startX, int startY,
+                                                int goalFloor, int goalX, int goalY) {
+        int start = graph.nodeId(startFloor, startX, startY);
+        int goal = graph.nodeId(goalFloor, goalX, goalY);
+        if (start < 0 || goal < 0 || !graph.isReachable(start, goal)) {
+            return new AStarPathfinding.PathResult(null, 0, null, null);
+        }
+        if (search(start, goal, goalFloor, goalX, goalY)) {
+            return buildResult(goal, exploredCount);
+        }
+        return new AStarPathfinding.PathResult(null, exploredCount, null, null);
+    }
+
+    // Cost of the optimal route without materialising it, or Float.POSITIVE_INFINITY when
+    // the goal is unreachable. For distance tables that only need the number.
+    public float findPathCost(int startFloor, int startX, int startY, int goalFloor, int goalX, int goalY) {
+        int start = graph.nodeId(startFloor, startX, startY);
+        int goal = graph.nodeId(goalFloor, goalX, goalY);
+        if (start < 0 || goal < 0 || !graph.isReachable(start, goal)) {
+            exploredCount = 0;
+            return Float.POSITIVE_INFINITY;
+        }
+        return search(start, goal, goalFloor, goalX, goalY) ? gCost[goal] : Float.POSITIVE_INFINITY;
+    }
+
+    // Expansions made by the last search on this instance.
+    public int getExploredCount() {
+        return exploredCount;
+    }
+
+    private boolean search(int start, int goal, int goalFloor, int goalX, int goalY) {
+        newSearch();
+        gCost[start] = 0;
+        parent[start] = -1;
+        visitedStamp[start] = stamp;
+        openSet.push(start, graph.heuristic(start, goalFloor, goalX, goalY));
+
+        exploredCount = 0;
+        while (!openSet.isEmpty()) {
+            checkInterrupted();
+            int current = openSet.poll();
+            exploredCount++;
+            if (current == goal) {
+                return true;
+            }
+            int count = graph.neighbors(current, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighborBuffer[i];
+                float tentativeG = gCost[current] + graph.edgeCost(current, neighbor);
+                if (visitedStamp[neighbor] == stamp && tentativeG >= gCost[neighbor]) continue;
+                gCost[neighbor] = tentativeG;
+                parent[neighbor] = current;
+                visitedStamp[neighbor] = stamp;
+                openSet.push(neighbor, tentativeG + graph.heuristic(neighbor, goalFloor, goalX, goalY));
+            }
+        }
+        return false;
+    }
+
+    // Multi-goal A*: one search from the start to whichever goal node is cheapest to reach.
+    // The heuristic is the minimum over all goals, which stays admissible and consistent,
+    // so the first goal polled is the nearest one. goals holds node ids; unreachable ones are ignored.
+    public AStarPathfinding.PathResult findPathToNearest(int startFloor, int startX, int startY, int[] goals) {
+        int start = graph.nodeId(startFloor, startX, startY);
+        if (start < 0 || !graph.isWalkable(start)) {
+            return new AStarPathfinding.PathResult(null, 0, null, null);
+        }
+        int goalCount = 0;
+        int[] targets = new int[goals.length];
+        for (int goal : goals) {
+            if (goal >= 0 && goal < graph.getNodeCount() && graph.isReachable(start, goal)) {
+                targets[goalCount++] = goal;
+            }
+        }
+        if (goalCount == 0) {
+            return new AStarPathfinding.PathResult(null, 0, null, null);
+        }
+        newSearch();
+        gCost[start] = 0;
+        parent[start] = -1;
+        visitedStamp[start] = stamp;
+        openSet.push(start, nearestGoalHeuristic(start, targets, goalCount));
+
+        exploredCount = 0;
+        while (!openSet.isEmpty()) {
+            checkInterrupted();
+            int current = openSet.poll();
+            exploredCount++;
+            if (isGoal(current, targets, goalCount)) {
+                return buildResult(current, exploredCount);
+            }
+            int count = graph.neighbors(current, neighborBuffer);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighborBuffer[i];
+                float tentativeG = gCost[current] + graph.edgeCost(current, neighbor);
+                if (visitedStamp[neighbor] == stamp && tentativeG >= gCost[neighbor]) continue;
+                gCost[neighbor] = tentativeG;
+                parent[neighbor] = current;
+                visitedStamp[neighbor] = stamp;
+                openSet.push(neighbor, tentativeG + nearestGoalHeuristic(neighbor, targets, goalCount));
+            }
+        }
+        return new AStarPathfinding.PathResult(null, exploredCount, null, null);
+    }
+
+    private void checkInterrupted() {
+        if ((exploredCount & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Route search interrupted after " + exploredCount + " expansions");
+        }
+    }
+
+    private float nearestGoalHeuristic(int node, int[] targets, int goalCount) {
+        float best = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < goalCount; i++) {
+            int goal = targets[i];
+            best = Math.min(best, graph.heuristic(node, graph.floorOf(goal), graph.xOf(goal), graph.yOf(goal)));
+        }
+        return best;
+    }
+
+    private static boolean isGoal(int node, int[] targets, int goalCount) {
+        for (int i = 0; i < goalCount; i++) {
+            if (targets[i] == node) return true;
+        }
+        return false;
+    }
+
+    private void newSearch() {
+        openSet.clear();
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitedStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    private AStarPathfinding.PathResult buildResult(int goal, int exploredCount) {
+        int length = 0;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            length++;
+        }
+        int[] route = new int[length];
+        int slot = length - 1;
+        for (int i = goal; i >= 0; i = parent[i]) {
+            route[slot--] = i;
+        }
+        return toPathResult(graph, route, length, gCost, exploredCount);
+    }
+
+    // Materialises a route of node ids and splits it wherever it changes floor. The first
+    // stair taken becomes startStair and the stair cell the route arrives on last endStair.
+    // costs, when given, supplies each node's gCost.
+    static AStarPathfinding.PathResult toPathResult(MultiFloorGraph graph, int[] route, int length,
+                                                    float[] costs, int exploredCount) {
+        List<AStarPathfinding.Node> path = new ArrayList<>(length);
+        List<List<AStarPathfinding.Node>> segments = new ArrayList<>();
+        List<AStarPathfinding.Node> segment = new ArrayList<>();
+        AStarPathfinding.Node startStair = null;
+        AStarPathfinding.Node endStair = null;
+        AStarPathfinding.Node previous = null;
+        for (int k = 0; k < length; k++) {
+            int id = route[k];
+            AStarPathfinding.Node node = new AStarPathfinding.Node(graph.xOf(id), graph.yOf(id), graph.floorOf(id),
+                    costs != null ? costs[id] : k, 0);
+            if (previous != null) {
+                node.parent = previous;
+                if (node.floor != previous.floor) {
+                    if (startStair == null) startStair = previous;
+                    endStair = node;
+                    segments.add(segment);
+                    segment = new ArrayList<>();
+                }
+            }
+            path.add(node);
+            segment.add(node);
+            previous = node;
+        }
+        segments.add(segment);
+        AStarPathfinding.PathResult result = new AStarPathfinding.PathResult(path, exploredCount, startStair, endStair);
+        result.segments = segments;
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package com.vern.vernaduwaste;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Color;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
@@ -38,16 +39,20 @@ import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class NavigationMapActivity extends AppCompatActivity implements MapGridView.MarkerClickListener {
 
@@ -62,6 +67,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
     private LinearLayout modalBox;
     private Button btnBin;
     private Button btnGoBack;
+    private Button btnNearestBin;
 
     private float lastAzimuth = -1;
     private static final float ORIENTATION_THRESHOLD = 5.0f;
@@ -70,12 +76,12 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
     private Sensor rotationVectorSensor;
     private boolean isInitialOrientationSet = false;
     private boolean isInitialAltitudeSet = false;
-    // Floor maps loaded from assets (JSON files)
-    private final Map<Integer, int[][]> floorMaps = new HashMap<>();
+    // Floor maps discovered in the assets, loaded on demand and evicted under a memory budget
+    private FloorRepository floorRepository;
     // Instance of AStarPathfinding for computing paths
     private final AStarPathfinding pathfinder = new AStarPathfinding();
 
-    private int[][] mapGrid;
+    private FloorModel floorModel;
     private final SensorEventListener sensorEventListener = new SensorEventListener() {
         @Override
         public void onSensorChanged(SensorEvent event) {
@@ -134,11 +140,25 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
     // Device floor (determined from altitude and RSSI)
     private int deviceFloor = -1;
     private boolean isSwitchingFloor = false;
-    // Global caches for multi-floor navigation segments:
-    private List<int[]> multiFloorPathToStair = null;
-    private List<int[]> multiFloorPathFromStair = null;
-    private int[] cachedStairCoordinates = null;
-    private int cachedGoalFloor = -1;
+    // All floors as one graph for multi-floor routing; rebuilt whenever the floor maps change.
+    private MultiFloorGraph floorGraph;
+    // Route segments of the current navigation by floor, in travel order; a floor the route
+    // passes through more than once has one segment per visit.
+    private final Map<Integer, List<List<int[]>>> navigationSegments = new HashMap<>();
+    // Precomputed per-bin distance fields; rebuilt in the background when maps or bins change.
+    private final DistanceFieldRouter distanceFieldRouter = new DistanceFieldRouter();
+    // Incremental planner anchored at the selected bin; keeps the route following the device.
+    // Created and used on the routing thread; the main thread only drops it.
+    private volatile DStarLite livePlanner;
+    // Route searches run off the UI thread; a newer tap cancels the search still in flight.
+    private static final String ROUTE_VIEW_KEY = "navigation";
+    private final RoutingExecutor routingExecutor = new RoutingExecutor();
+    private boolean routePending = false;
+    // The pending search is a "Nearest bin" request rather than a route to the selected bin.
+    private boolean nearestBinPending = false;
+    private final FloorLoader floorLoader = new FloorLoader();
+    // Share of the heap that resident floor maps may use before unpinned floors are evicted.
+    private static final int FLOOR_MEMORY_BUDGET_DIVISOR = 16;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -153,8 +173,10 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         modalBox = findViewById(R.id.modal_box);
         btnBin = findViewById(R.id.btn_bin);
         btnGoBack = findViewById(R.id.btn_go_back);
+        btnNearestBin = findViewById(R.id.btn_nearest_bin);
 
         mapView.setMarkerClickListener(this);
+        mapView.setDeviceArrowView(findViewById(R.id.device_arrow));
         modalBox.setVisibility(View.GONE);
 
         firebaseHelper = new FirebaseHelper();
@@ -166,10 +188,13 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
             openWasteDisposalSuccessActivity();
         });
 
+        btnNearestBin.setOnClickListener(v -> routeToNearestBin());
+
         btnGoBack.setOnClickListener(v -> {
             modalBox.setVisibility(View.GONE);
             floorSpinner.setVisibility(View.VISIBLE);
             btnBack.setVisibility(View.VISIBLE);
+            btnNearestBin.setVisibility(View.VISIBLE);
             mapView.deselectMarker();
             mapView.clearPaths();
             selectedBinX = -1;
@@ -178,14 +203,13 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
             lastSelectedBinX = -1;
             lastSelectedBinY = -1;
             lastSelectedBinFloor = -1;
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
+            clearNavigationSegments();
             Log.d(TAG, "Go Back clicked. Navigation paths cleared.");
         });
 
         appState = AppState.getInstance(this);
+        floorRepository = new FloorRepository(discoverFloorAssets(), floorLoader, this::readFloorMap,
+                Runtime.getRuntime().maxMemory() / FLOOR_MEMORY_BUDGET_DIVISOR, floorListener);
         setupFloorSpinner();
         checkLocationPermission();
         initRotationVectorSensor();
@@ -199,8 +223,9 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         // Retrieve Wi-Fi board positions from Firebase (if needed)
         fetchWifiBoardPositions();
 
-        // Load floor maps from assets (e.g., floor1.json, floor2.json, floor3.json)
-        initializeFloors();
+        // Load the floor on screen and the floors routing needs (floorN.bin, or floorN.json as
+        // a fallback) in the background
+        updateResidentFloors();
     }
 
     @Override
@@ -224,7 +249,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
                     dismissNetworkDialog();
                     mapView.clearPaths();
                     currentFloor = 1;
-                    floorSpinner.setSelection(currentFloor - 1);
+                    floorSpinner.setSelection(floorPosition(currentFloor));
                     updateFloor();
                     Log.d(TAG, "User chose offline mode.");
                 })
@@ -247,7 +272,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
                     dismissNetworkDialog();
                     mapView.clearPaths();
                     currentFloor = 1;
-                    floorSpinner.setSelection(currentFloor - 1);
+                    floorSpinner.setSelection(floorPosition(currentFloor));
                     updateFloor();
                     Log.d(TAG, "User chose offline mode due to no internet.");
                 })
@@ -260,7 +285,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
             isOfflineMode = true;
             mapView.clearPaths();
             currentFloor = 1;
-            floorSpinner.setSelection(currentFloor - 1);
+            floorSpinner.setSelection(floorPosition(currentFloor));
             updateFloor();
             Log.d(TAG, "Offline mode activated. Ground floor set as default.");
             return;
@@ -278,17 +303,23 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         }
     }
 
+    // One entry per discovered floor; the first floors keep their names from floor_options.
     private void setupFloorSpinner() {
-        ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(this,
-                R.array.floor_options, android.R.layout.simple_spinner_item);
+        String[] names = getResources().getStringArray(R.array.floor_options);
+        int[] floors = floorRepository.getFloors();
+        List<String> labels = new ArrayList<>(floors.length);
+        for (int floor : floors) {
+            labels.add(floor >= 1 && floor <= names.length ? names[floor - 1] : getString(R.string.floor_label, floor));
+        }
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, labels);
         adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         floorSpinner.setAdapter(adapter);
-        floorSpinner.setSelection(0);
+        floorSpinner.setSelection(floorPosition(currentFloor));
         floorSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
                 if (isSwitchingFloor) return;
-                int selectedFloor = position + 1;
+                int selectedFloor = floors[position];
                 if (currentFloor != selectedFloor) {
                     isSwitchingFloor = true;
                     currentFloor = selectedFloor;
@@ -302,6 +333,24 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         });
     }
 
+    // Spinner position of floor, or 0 when the floor has no map.
+    private int floorPosition(int floor) {
+        int[] floors = floorRepository.getFloors();
+        for (int i = 0; i < floors.length; i++) {
+            if (floors[i] == floor) return i;
+        }
+        return 0;
+    }
+
+    private int[] discoverFloorAssets() {
+        try {
+            return FloorRepository.discoverFloors(getAssets().list(""));
+        } catch (IOException e) {
+            Log.e(TAG, "Could not list floor map assets.", e);
+            return new int[0];
+        }
+    }
+
     private void checkLocationPermission() {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
                 != PackageManager.PERMISSION_GRANTED) {
@@ -370,6 +419,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
                 this.board1 = board1;
                 this.board2 = board2;
                 // (Stairs are now extracted from JSON maps; no need to cache from Firebase.)
+                if (!updateResidentFloors()) onRoutingDataChanged();
                 showMarkersForCurrentFloor();
                 checkInitialDataLoaded();
                 Log.d(TAG, "Wi‑Fi board positions fetched: Board1(" + board1.x + ", " + board1.y +
@@ -415,7 +465,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
                             currentFloor = determinedFloor;
                             deviceFloor = determinedFloor;
                             runOnUiThread(() -> {
-                                floorSpinner.setSelection(currentFloor - 1);
+                                floorSpinner.setSelection(floorPosition(currentFloor));
                                 updateFloor();
                                 Log.d(TAG, "Floor set to " + currentFloor + " based on altitude.");
                             });
@@ -457,61 +507,169 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         }
     }
 
+    // The map is shown as soon as the floor on screen has loaded; the other floors keep
+    // streaming in behind it.
     private void checkInitialDataLoaded() {
-        if (isInitialOrientationSet && isInitialAltitudeSet && floorMaps.size() == 3) {
-            new Handler().postDelayed(() -> {
-                loadingSpinner.setVisibility(View.GONE);
-                mapView.setVisibility(View.VISIBLE);
-                mapView.requestLayout();
-                mapView.invalidate();
-                Log.d(TAG, "Initial data loaded. Map view is now visible.");
-            }, 1000);
+        if (isInitialOrientationSet && isInitialAltitudeSet && floorRepository.isResident(currentFloor)
+                && mapView.getVisibility() != View.VISIBLE) {
+            loadingSpinner.setVisibility(View.GONE);
+            mapView.setVisibility(View.VISIBLE);
+            mapView.requestLayout();
+            mapView.invalidate();
+            Log.d(TAG, "Initial data loaded. Map view is now visible.");
         }
     }
 
-    private void initializeFloors() {
-        loadMapGridFromJson(1, "floor1.json");
-        loadMapGridFromJson(2, "floor2.json");
-        loadMapGridFromJson(3, "floor3.json");
-        Log.d(TAG, "All floor maps loaded.");
+    // Pins the floor on screen, the device and goal floors and the floors routing spans,
+    // requests whichever of them are missing (the floor on screen first) and rebuilds the
+    // routing graph once they are all resident. Returns true if the graph was rebuilt.
+    private boolean updateResidentFloors() {
+        int[] routing = routingFloors();
+        Set<Integer> pins = new HashSet<>();
+        for (int floor : routing) {
+            pins.add(floor);
+        }
+        pins.add(currentFloor);
+        if (deviceFloor > 0) pins.add(deviceFloor);
+        if (selectedBinFloor > 0) pins.add(selectedBinFloor);
+        floorRepository.setPinned(pins);
+        floorRepository.request(currentFloor);
+        floorRepository.request(routing);
+        return rebuildFloorGraph(routing);
     }
 
-    private void loadMapGridFromJson(int floor, String filename) {
-        try (InputStream is = getAssets().open(filename)) {
-            byte[] buffer = new byte[is.available()];
-            is.read(buffer);
-            String jsonStr = new String(buffer, StandardCharsets.UTF_8);
-            JSONArray jsonArray = new JSONArray(jsonStr);
-            int[][] grid = new int[jsonArray.length()][jsonArray.getJSONArray(0).length()];
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONArray row = jsonArray.getJSONArray(i);
-                for (int j = 0; j < row.length(); j++) {
-                    grid[i][j] = row.getInt(j);
-                }
+    // Stairs only link adjacent floors, so routing needs every floor between the device (or
+    // the floor on screen while the device floor is unknown) and the bins.
+    private int[] routingFloors() {
+        int low = deviceFloor > 0 ? deviceFloor : currentFloor;
+        int high = low;
+        for (FirebaseHelper.WifiPosition bin : new FirebaseHelper.WifiPosition[]{board1, board2}) {
+            if (bin == null) continue;
+            low = Math.min(low, bin.floor);
+            high = Math.max(high, bin.floor);
+        }
+        if (selectedBinFloor > 0) {
+            low = Math.min(low, selectedBinFloor);
+            high = Math.max(high, selectedBinFloor);
+        }
+        List<Integer> floors = new ArrayList<>();
+        for (int floor = low; floor <= high; floor++) {
+            if (floorRepository.hasFloor(floor)) floors.add(floor);
+        }
+        int[] result = new int[floors.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = floors.get(i);
+        }
+        return result;
+    }
+
+    // Builds the graph over the routing floors unless one is still loading or the current
+    // graph already holds exactly those floor models.
+    private boolean rebuildFloorGraph(int[] routing) {
+        List<FloorModel> models = new ArrayList<>(routing.length);
+        boolean unchanged = floorGraph != null && Arrays.equals(floorGraph.getFloors(), routing);
+        for (int floor : routing) {
+            FloorModel model = floorRepository.get(floor);
+            if (model == null) return false;
+            unchanged = unchanged && floorGraph.getModel(floor) == model;
+            models.add(model);
+        }
+        if (unchanged || models.isEmpty()) return false;
+        floorGraph = new MultiFloorGraph(models);
+        onRoutingDataChanged();
+        Log.d(TAG, "Routing graph built over floors " + Arrays.toString(routing));
+        return true;
+    }
+
+    // True when the routing graph covers every given floor.
+    private boolean isRoutable(int... floors) {
+        if (floorGraph == null) return false;
+        for (int floor : floors) {
+            if (floorGraph.getModel(floor) == null) return false;
+        }
+        return true;
+    }
+
+    private final FloorRepository.Listener floorListener = new FloorRepository.Listener() {
+        @Override
+        public void onFloorLoaded(FloorModel model) {
+            if (model.getFloor() == currentFloor) {
+                updateFloor();
+                checkInitialDataLoaded();
+            } else {
+                rebuildFloorGraph(routingFloors());
             }
-            floorMaps.put(floor, grid);
-            Log.d(TAG, "Loaded map for floor " + floor);
-            if (floor == currentFloor) {
-                mapGrid = grid;
-                mapView.setMapGrid(mapGrid, deviceFloor);
+        }
+
+        @Override
+        public void onFloorFailed(int floor, Exception error) {
+            Toast.makeText(NavigationMapActivity.this, "Error loading floor " + floor, Toast.LENGTH_LONG).show();
+            Log.e(TAG, "Error loading floor map " + floor, error);
+        }
+    };
+
+    // Floor maps or bin positions changed: drop cached routes and recompute the bin
+    // distance fields off the UI thread for the current graph and bins.
+    private void onRoutingDataChanged() {
+        pathfinder.invalidateRoutes();
+        if (floorGraph == null) return;
+        List<FirebaseHelper.WifiPosition> bins = new ArrayList<>();
+        if (board1 != null) bins.add(board1);
+        if (board2 != null) bins.add(board2);
+        distanceFieldRouter.rebuild(floorGraph, bins);
+    }
+
+    // Prefers the binary floorN.bin asset and falls back to floorN.json when it is missing
+    // or unreadable. Runs on a FloorLoader thread.
+    private FloorModel readFloorMap(int floor) throws IOException, JSONException {
+        String filename = "floor" + floor + FloorMapCodec.EXTENSION;
+        FloorModel model;
+        try {
+            model = loadMapGridFromBinary(floor, filename);
+        } catch (IOException e) {
+            Log.w(TAG, "No usable " + filename + ", falling back to JSON", e);
+            filename = "floor" + floor + ".json";
+            model = loadMapGridFromJson(floor, filename);
+        }
+        Log.d(TAG, "Loaded map for floor " + floor + " from " + filename);
+        return model;
+    }
+
+    // Maps the asset straight out of the APK. Requires the asset to be stored uncompressed
+    // (see noCompress in build.gradle); openFd() throws otherwise.
+    private FloorModel loadMapGridFromBinary(int floor, String filename) throws IOException {
+        try (AssetFileDescriptor fd = getAssets().openFd(filename);
+             FileInputStream in = fd.createInputStream();
+             FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+            FloorModel model = FloorMapCodec.read(buffer);
+            if (model.getFloor() != floor) {
+                throw new IOException(filename + " holds floor " + model.getFloor());
             }
-        } catch (IOException | JSONException e) {
-            Toast.makeText(this, "Error loading " + filename, Toast.LENGTH_LONG).show();
-            Log.e(TAG, "Error loading floor map: " + filename, e);
+            return model;
+        }
+    }
+
+    private FloorModel loadMapGridFromJson(int floor, String filename) throws IOException, JSONException {
+        try (InputStream is = getAssets().open(filename)) {
+            return FloorModel.compile(floor, FloorMapParser.parse(is));
         }
     }
 
     private void updateFloor() {
-        if (!floorMaps.containsKey(currentFloor)) {
-            Log.w(TAG, "Floor " + currentFloor + " not loaded.");
+        updateResidentFloors();
+        FloorModel model = floorRepository.get(currentFloor);
+        if (model == null) {
+            // Shown by the floor listener once it has loaded.
+            Log.w(TAG, "Floor " + currentFloor + " not loaded yet.");
             return;
         }
-        mapGrid = floorMaps.get(currentFloor);
-        mapView.setMapGrid(mapGrid, deviceFloor);
+        floorModel = model;
+        mapView.setFloorModel(floorModel, deviceFloor);
         mapView.setCurrentFloor(currentFloor);
         showMarkersForCurrentFloor();
-        apX = mapGrid[0].length / 2;
-        apY = mapGrid.length / 2;
+        apX = floorModel.getWidth() / 2;
+        apY = floorModel.getHeight() / 2;
         if (!isOfflineMode && wifiManager != null && currentFloor == deviceFloor) {
             int rssi = getCurrentRssi();
             updateDeviceMarkerPosition(rssi);
@@ -526,10 +684,11 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
     }
 
     private void updateDeviceMarkerPosition(int rssi) {
-        if (mapGrid == null) {
+        if (floorModel == null) {
             Log.w(TAG, "Map grid is not initialized.");
             return;
         }
+        int previousDeviceX = deviceX, previousDeviceY = deviceY;
         double distance = getDistanceFromRssi(rssi);
         int cellsAway = (int) Math.round(distance / 0.5);
         double angleRad = Math.toRadians(lastAzimuth);
@@ -537,15 +696,16 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         int deltaY = (int) Math.round(cellsAway * Math.cos(angleRad));
         int newDeviceX = apX + deltaX;
         int newDeviceY = apY - deltaY;
-        newDeviceX = Math.max(0, Math.min(newDeviceX, mapGrid[0].length - 1));
-        newDeviceY = Math.max(0, Math.min(newDeviceY, mapGrid.length - 1));
-        if (pathfinder.isWalkable(mapGrid, newDeviceX, newDeviceY)) {
+        newDeviceX = Math.max(0, Math.min(newDeviceX, floorModel.getWidth() - 1));
+        newDeviceY = Math.max(0, Math.min(newDeviceY, floorModel.getHeight() - 1));
+        if (pathfinder.isWalkable(floorModel, newDeviceX, newDeviceY)) {
             deviceX = newDeviceX;
             deviceY = newDeviceY;
             mapView.addDeviceMarkerPosition(deviceX, deviceY);
             Log.d(TAG, "Device marker updated to (" + deviceX + ", " + deviceY + ") on floor " + deviceFloor);
         } else {
-            int[] closestWalkable = findClosestWalkablePosition(newDeviceX, newDeviceY);
+            // Snap to the nearest walkable cell precomputed when the floor was compiled.
+            int[] closestWalkable = floorModel.nearestWalkable(newDeviceX, newDeviceY);
             if (closestWalkable != null) {
                 deviceX = closestWalkable[0];
                 deviceY = closestWalkable[1];
@@ -556,31 +716,59 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
                 Log.w(TAG, "No walkable path found near device location.");
             }
         }
+        if (deviceX != previousDeviceX || deviceY != previousDeviceY) {
+            if (routePending) {
+                // The search in flight is for the old cell; restart it from the new one.
+                if (nearestBinPending) {
+                    routeToNearestBin();
+                } else {
+                    handlePathfinding(deviceX, deviceY, selectedBinX, selectedBinY, selectedBinFloor);
+                }
+            } else {
+                updateLiveRoute();
+            }
+        }
     }
 
-    private double getDistanceFromRssi(int rssi) {
-        int txPower = -59;
-        double n = 2.0;
-        return Math.pow(10.0, (txPower - rssi) / (10 * n));
+    // Replans the active route from the new device cell on the routing thread, reusing the
+    // previous search state. A newer location cancels a replan that has not started yet.
+    private void updateLiveRoute() {
+        if (selectedBinX < 0 || !isRoutable(deviceFloor, selectedBinFloor) || navigationSegments.isEmpty()) return;
+        MultiFloorGraph graph = floorGraph;
+        RoutingExecutor.RouteRequest request = new RoutingExecutor.RouteRequest(
+                deviceFloor, deviceX, deviceY, selectedBinFloor, selectedBinX, selectedBinY);
+        routingExecutor.submit(ROUTE_VIEW_KEY, request, () -> {
+            int goalNode = graph.nodeId(request.goalFloor, request.goalX, request.goalY);
+            DStarLite planner = livePlanner;
+            if (planner == null || planner.getGraph() != graph || planner.getGoalNode() != goalNode) {
+                planner = new DStarLite(graph, request.goalFloor, request.goalX, request.goalY);
+                livePlanner = planner;
+            }
+            return planner.moveStart(request.startFloor, request.startX, request.startY);
+        }, liveRouteListener);
     }
 
-    private int[] findClosestWalkablePosition(int x, int y) {
-        int maxDistance = Math.max(mapGrid.length, mapGrid[0].length);
-        for (int distance = 1; distance <= maxDistance; distance++) {
-            for (int dx = -distance; dx <= distance; dx++) {
-                for (int dy = -distance; dy <= distance; dy++) {
-                    int newX = x + dx;
-                    int newY = y + dy;
-                    if (newX < 0 || newY < 0 || newX >= mapGrid[0].length || newY >= mapGrid.length)
-                        continue;
-                    if (pathfinder.isWalkable(mapGrid, newX, newY)) {
-                        Log.d(TAG, "Closest walkable found at (" + newX + ", " + newY + ") on floor " + deviceFloor);
-                        return new int[]{newX, newY};
-                    }
-                }
+    private final RoutingExecutor.Listener liveRouteListener = new RoutingExecutor.Listener() {
+        @Override
+        public boolean isCurrent(RoutingExecutor.RouteRequest request) {
+            return routeListener.isCurrent(request);
+        }
+
+        @Override
+        public void onRouteReady(RoutingExecutor.RouteRequest request, AStarPathfinding.PathResult result) {
+            if (result.path == null) {
+                Log.w(TAG, "Live route lost at (" + request.startX + ", " + request.startY + "); keeping the previous route.");
+                return;
             }
+            applyRoute(result);
+            Log.d(TAG, "Live route updated with " + result.exploredCount + " expansions.");
         }
-        return null;
+    };
+
+    private double getDistanceFromRssi(int rssi) {
+        int txPower = -59;
+        double n = 2.0;
+        return Math.pow(10.0, (txPower - rssi) / (10 * n));
     }
 
     @Override
@@ -589,6 +777,7 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
             modalBox.setVisibility(View.GONE);
             floorSpinner.setVisibility(View.VISIBLE);
             btnBack.setVisibility(View.VISIBLE);
+            btnNearestBin.setVisibility(View.VISIBLE);
             mapView.deselectMarker();
             mapView.clearPaths();
             selectedBinX = -1;
@@ -597,15 +786,13 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
             lastSelectedBinX = -1;
             lastSelectedBinY = -1;
             lastSelectedBinFloor = -1;
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
+            clearNavigationSegments();
             Log.d(TAG, "Waste bin deselected. Navigation paths cleared.");
         } else {
             modalBox.setVisibility(View.VISIBLE);
             floorSpinner.setVisibility(View.VISIBLE);
             btnBack.setVisibility(View.GONE);
+            btnNearestBin.setVisibility(View.GONE);
             ViewCompat.setElevation(floorSpinner, 16f);
             ViewCompat.setElevation(modalBox, 8f);
             if (deviceX >= 0 && deviceY >= 0) {
@@ -639,127 +826,165 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
         }
     }
 
-    // Multi-floor pathfinding: computes paths on the device floor (user-to-stair) and on the goal floor (stair-to-goal)
-    // and caches these segments so that when switching floors, the correct navigation line is displayed.
+    // Multi-floor pathfinding: a single search over every floor and stair from the device location
+    // to the selected waste bin. The route is cached per floor so that when switching floors,
+    // the correct navigation line is displayed.
     private void handlePathfinding(int startX, int startY, int goalX, int goalY, int goalFloor) {
         // If invalid start point, do nothing.
         if (startX < 0 || startY < 0) {
             Toast.makeText(this, "User location not available.", Toast.LENGTH_SHORT).show();
             mapView.clearPaths();
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
+            clearNavigationSegments();
             return;
         }
         mapView.clearPaths();
         Log.d(TAG, "Cleared existing paths before pathfinding.");
 
-        // If same-floor, perform standard A*.
-        if (deviceFloor == goalFloor) {
-            AStarPathfinding.AStarResult result = pathfinder.aStar(floorMaps.get(goalFloor), startX, startY, goalX, goalY);
-            if (result != null && result.path != null) {
-                List<int[]> path = new ArrayList<>();
-                for (AStarPathfinding.Node node : result.path) {
-                    path.add(new int[]{node.x, node.y});
-                }
-                mapView.setPath(path);
-                multiFloorPathToStair = null;
-                multiFloorPathFromStair = null;
-                cachedStairCoordinates = null;
-                cachedGoalFloor = -1;
-                Log.d(TAG, "Single-floor path drawn on floor " + goalFloor);
-            } else {
-                mapView.clearPaths();
-                Toast.makeText(this, "No path found on the same floor.", Toast.LENGTH_SHORT).show();
-                Log.w(TAG, "No single-floor path found.");
-            }
+        if (!isRoutable(deviceFloor, goalFloor)) {
+            Toast.makeText(this, "Floor maps are not loaded yet.", Toast.LENGTH_SHORT).show();
+            clearNavigationSegments();
+            Log.w(TAG, "Pathfinding requested before floor graph was built.");
             return;
         }
+        // Descend the bin's precomputed distance field; search only if it is not built yet.
+        // Both run on the routing thread and the result is dropped if the selection or the
+        // device cell changed in the meantime.
+        MultiFloorGraph graph = floorGraph;
+        RoutingExecutor.RouteRequest request = new RoutingExecutor.RouteRequest(
+                deviceFloor, startX, startY, goalFloor, goalX, goalY);
+        routePending = true;
+        nearestBinPending = false;
+        routingExecutor.submit(ROUTE_VIEW_KEY, request, () -> {
+            AStarPathfinding.PathResult result = distanceFieldRouter.route(graph,
+                    request.startFloor, request.startX, request.startY, request.goalFloor, request.goalX, request.goalY);
+            if (result == null) {
+                result = pathfinder.findPathAcrossFloors(graph,
+                        request.startFloor, request.startX, request.startY, request.goalFloor, request.goalX, request.goalY);
+            }
+            return result;
+        }, routeListener);
+    }
 
-        // Multi-floor navigation:
-        // 1. On the user's (device) floor: extract stairs from JSON map.
-        List<int[]> startStairs = pathfinder.getStairsFromGrid(floorMaps.get(deviceFloor));
-        int[] nearestStair = pathfinder.findNearestStair(deviceFloor, floorMaps.get(deviceFloor), startX, startY, startStairs);
-        if (nearestStair == null) {
-            Toast.makeText(this, "No stairs found on your floor.", Toast.LENGTH_SHORT).show();
-            mapView.clearPaths();
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
-            Log.w(TAG, "No stairs found on device floor: " + deviceFloor);
-            return;
-        }
-        AStarPathfinding.AStarResult resultToStair = pathfinder.aStar(floorMaps.get(deviceFloor), startX, startY, nearestStair[0], nearestStair[1]);
-        if (resultToStair == null || resultToStair.path == null) {
-            Toast.makeText(this, "No path to stairs found on your floor.", Toast.LENGTH_SHORT).show();
-            mapView.clearPaths();
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
-            Log.w(TAG, "No path to stairs found on device floor.");
-            return;
-        }
-        List<int[]> pathToStair = new ArrayList<>();
-        for (AStarPathfinding.Node node : resultToStair.path) {
-            pathToStair.add(new int[]{node.x, node.y});
+    private final RoutingExecutor.Listener routeListener = new RoutingExecutor.Listener() {
+        @Override
+        public boolean isCurrent(RoutingExecutor.RouteRequest request) {
+            return !isFinishing() && request.goalFloor == selectedBinFloor
+                    && request.goalX == selectedBinX && request.goalY == selectedBinY
+                    && request.startFloor == deviceFloor && request.startX == deviceX && request.startY == deviceY;
         }
 
-        // 2. On the goal floor: extract stairs from JSON map.
-        List<int[]> goalStairs = pathfinder.getStairsFromGrid(floorMaps.get(goalFloor));
-        boolean stairExists = false;
-        for (int[] stair : goalStairs) {
-            if (stair[0] == nearestStair[0] && stair[1] == nearestStair[1]) {
-                stairExists = true;
-                break;
+        @Override
+        public void onRouteReady(RoutingExecutor.RouteRequest request, AStarPathfinding.PathResult result) {
+            routePending = false;
+            if (result.path == null) {
+                Toast.makeText(NavigationMapActivity.this, "No path to the selected waste bin found.", Toast.LENGTH_SHORT).show();
+                clearNavigationSegments();
+                Log.w(TAG, "No path from floor " + request.startFloor + " to waste bin on floor " + request.goalFloor);
+                return;
             }
+            livePlanner = null;
+            applyRoute(result);
+            RouteCache routeCache = pathfinder.getRouteCache();
+            Log.d(TAG, "Route found across " + result.segments.size() + " floor segment(s), explored " + result.exploredCount
+                    + " nodes. Route cache hits/misses: " + routeCache.getHitCount() + "/" + routeCache.getMissCount());
         }
-        if (!stairExists) {
-            Toast.makeText(this, "Corresponding stair not found on target floor.", Toast.LENGTH_SHORT).show();
-            mapView.clearPaths();
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
-            Log.w(TAG, "Stair (" + nearestStair[0] + "," + nearestStair[1] + ") not found on goal floor " + goalFloor);
+    };
+
+    // One search from the device to every deployed bin; the route ends at the cheapest one to reach.
+    private void routeToNearestBin() {
+        if (deviceX < 0 || deviceY < 0) {
+            Toast.makeText(this, "Device location not available.", Toast.LENGTH_SHORT).show();
             return;
         }
-        AStarPathfinding.AStarResult resultFromStair = pathfinder.aStar(floorMaps.get(goalFloor), nearestStair[0], nearestStair[1], goalX, goalY);
-        if (resultFromStair == null || resultFromStair.path == null) {
-            Toast.makeText(this, "No path from stairs to waste bin found on target floor.", Toast.LENGTH_SHORT).show();
-            mapView.clearPaths();
-            multiFloorPathToStair = null;
-            multiFloorPathFromStair = null;
-            cachedStairCoordinates = null;
-            cachedGoalFloor = -1;
-            Log.w(TAG, "No path from stairs to goal on goal floor.");
+        if (!isRoutable(deviceFloor)) {
+            Toast.makeText(this, "Floor maps are not loaded yet.", Toast.LENGTH_SHORT).show();
             return;
         }
-        List<int[]> pathFromStair = new ArrayList<>();
-        for (AStarPathfinding.Node node : resultFromStair.path) {
-            pathFromStair.add(new int[]{node.x, node.y});
+        List<int[]> goals = new ArrayList<>();
+        if (board1 != null) goals.add(new int[]{board1.floor, board1.x, board1.y});
+        if (board2 != null) goals.add(new int[]{board2.floor, board2.x, board2.y});
+        if (goals.isEmpty()) {
+            Toast.makeText(this, "No waste bins are available.", Toast.LENGTH_SHORT).show();
+            return;
         }
+        MultiFloorGraph graph = floorGraph;
+        RoutingExecutor.RouteRequest request = new RoutingExecutor.RouteRequest(
+                deviceFloor, deviceX, deviceY, -1, -1, -1);
+        routePending = true;
+        nearestBinPending = true;
+        routingExecutor.submit(ROUTE_VIEW_KEY, request,
+                () -> pathfinder.findPathToNearestGoal(graph, request.startFloor, request.startX, request.startY, goals),
+                nearestBinListener);
+    }
 
-        // Cache the computed segments and stair coordinate.
-        multiFloorPathToStair = pathToStair;
-        multiFloorPathFromStair = pathFromStair;
-        cachedStairCoordinates = nearestStair;
-        cachedGoalFloor = goalFloor;
+    private final RoutingExecutor.Listener nearestBinListener = new RoutingExecutor.Listener() {
+        @Override
+        public boolean isCurrent(RoutingExecutor.RouteRequest request) {
+            return !isFinishing() && request.startFloor == deviceFloor
+                    && request.startX == deviceX && request.startY == deviceY;
+        }
 
-        // Update navigation display based on current floor.
+        @Override
+        public void onRouteReady(RoutingExecutor.RouteRequest request, AStarPathfinding.PathResult result) {
+            routePending = false;
+            nearestBinPending = false;
+            if (result.path == null) {
+                Toast.makeText(NavigationMapActivity.this, "No reachable waste bin found.", Toast.LENGTH_SHORT).show();
+                Log.w(TAG, "No waste bin reachable from floor " + request.startFloor);
+                return;
+            }
+            AStarPathfinding.Node bin = result.path.get(result.path.size() - 1);
+            selectedBinFloor = bin.floor;
+            selectedBinX = bin.x;
+            selectedBinY = bin.y;
+            lastSelectedBinX = selectedBinX;
+            lastSelectedBinY = selectedBinY;
+            lastSelectedBinFloor = selectedBinFloor;
+            modalBox.setVisibility(View.VISIBLE);
+            btnBack.setVisibility(View.GONE);
+            btnNearestBin.setVisibility(View.GONE);
+            if (bin.floor == currentFloor) {
+                mapView.selectMarker(bin.x, bin.y);
+            }
+            livePlanner = null;
+            applyRoute(result);
+            Log.d(TAG, "Nearest waste bin at (" + bin.x + ", " + bin.y + ") on floor " + bin.floor
+                    + ", explored " + result.exploredCount + " nodes.");
+        }
+    };
+
+    // Caches the route segments by floor and displays the ones for the current floor.
+    // Each segment is reduced to its turning points, so the map draws straight any-angle
+    // lines instead of one vertex per cell.
+    private void applyRoute(AStarPathfinding.PathResult result) {
+        navigationSegments.clear();
+        for (List<AStarPathfinding.Node> segment : result.segments) {
+            int floor = segment.get(0).floor;
+            FloorModel model = floorRepository.get(floor);
+            List<AStarPathfinding.Node> turningPoints = model != null ? PathSmoother.smooth(model, segment) : segment;
+            List<int[]> points = new ArrayList<>(turningPoints.size());
+            for (AStarPathfinding.Node node : turningPoints) {
+                points.add(new int[]{node.x, node.y});
+            }
+            navigationSegments.computeIfAbsent(floor, f -> new ArrayList<>()).add(points);
+        }
         updateNavigationPathDisplay();
     }
 
+    private void clearNavigationSegments() {
+        navigationSegments.clear();
+        livePlanner = null;
+        routePending = false;
+        nearestBinPending = false;
+        routingExecutor.cancel(ROUTE_VIEW_KEY);
+    }
+
     // Updates the displayed navigation path based on the current floor.
     private void updateNavigationPathDisplay() {
-        if (currentFloor == deviceFloor && multiFloorPathToStair != null) {
-            mapView.setPath(multiFloorPathToStair);
-            Log.d(TAG, "Displaying path from user to stairs on floor " + deviceFloor);
-        } else if (currentFloor == cachedGoalFloor && multiFloorPathFromStair != null) {
-            mapView.setPath(multiFloorPathFromStair);
-            Log.d(TAG, "Displaying path from stairs to waste bin on floor " + cachedGoalFloor);
+        List<List<int[]>> segments = navigationSegments.get(currentFloor);
+        if (segments != null) {
+            mapView.setPaths(segments);
+            Log.d(TAG, "Displaying route segment on floor " + currentFloor);
         } else {
             mapView.clearPaths();
             Log.d(TAG, "Current floor (" + currentFloor + ") not in multi-floor navigation. No path displayed.");
@@ -783,5 +1008,8 @@ public class NavigationMapActivity extends AppCompatActivity implements MapGridV
             fusedLocationClient.removeLocationUpdates(locationCallback);
             Log.d(TAG, "Location updates removed.");
         }
+        distanceFieldRouter.shutdown();
+        routingExecutor.shutdown();
+        floorLoader.shutdown();
     }
 }
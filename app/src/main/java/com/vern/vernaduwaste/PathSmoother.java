@@ -0,0 +1,81 @@
+package com.vern.vernaduwaste;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Any-angle post-processing by string pulling: keeps only the turning points of a
+// cell-by-cell route, dropping every cell that the previous turning point can see
+// directly. Line of sight is a Bresenham walk over walkable cells, which matches the
+// corner cutting the 8-connected search already allows.
+public final class PathSmoother {
+
+    private PathSmoother() {
+    }
+
+    // Walkability of one cell, so the grid and model overloads share the walk below.
+    private interface Cells {
+        boolean isWalkable(int x, int y);
+    }
+
+    // Returns the turning points of path, start and goal included. path must lie on grid.
+    public static List<AStarPathfinding.Node> smooth(int[][] grid, List<AStarPathfinding.Node> path) {
+        return smooth((x, y) -> isWalkable(grid, x, y), path);
+    }
+
+    public static List<AStarPathfinding.Node> smooth(FloorModel model, List<AStarPathfinding.Node> path) {
+        return smooth(model::isWalkable, path);
+    }
+
+    private static List<AStarPathfinding.Node> smooth(Cells cells, List<AStarPathfinding.Node> path) {
+        if (path == null || path.size() <= 2) return path;
+        List<AStarPathfinding.Node> turningPoints = new ArrayList<>();
+        AStarPathfinding.Node anchor = path.get(0);
+        turningPoints.add(anchor);
+        for (int i = 2; i < path.size(); i++) {
+            AStarPathfinding.Node candidate = path.get(i);
+            if (!hasLineOfSight(cells, anchor.x, anchor.y, candidate.x, candidate.y)) {
+                anchor = path.get(i - 1);
+                turningPoints.add(anchor);
+            }
+        }
+        turningPoints.add(path.get(path.size() - 1));
+        return turningPoints;
+    }
+
+    // True when every cell on the Bresenham line from (x0, y0) to (x1, y1) is walkable.
+    public static boolean hasLineOfSight(int[][] grid, int x0, int y0, int x1, int y1) {
+        return hasLineOfSight((x, y) -> isWalkable(grid, x, y), x0, y0, x1, y1);
+    }
+
+    public static boolean hasLineOfSight(FloorModel model, int x0, int y0, int x1, int y1) {
+        return hasLineOfSight(model::isWalkable, x0, y0, x1, y1);
+    }
+
+    private static boolean hasLineOfSight(Cells cells, int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int stepX = x0 < x1 ? 1 : -1;
+        int stepY = y0 < y1 ? 1 : -1;
+        int error = dx + dy;
+        int x = x0;
+        int y = y0;
+        while (true) {
+            if (!cells.isWalkable(x, y)) return false;
+            if (x == x1 && y == y1) return true;
+            int doubled = 2 * error;
+            if (doubled >= dy) {
+                error += dy;
+                x += stepX;
+            }
+            if (doubled <= dx) {
+                error += dx;
+                y += stepY;
+            }
+        }
+    }
+
+    private static boolean isWalkable(int[][] grid, int x, int y) {
+        return y >= 0 && y < grid.length && x >= 0 && x < grid[y].length
+                && (grid[y][x] == 0 || grid[y][x] == 2);
+    }
+}
@@ -0,0 +1,104 @@
+package com.vern.vernaduwaste;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded LRU cache of PathResults keyed by (startFloor, startX, startY, goalFloor, goalX, goalY).
+// invalidate() bumps a map version and drops every entry; a result computed against an
+// older version is refused by put(), so a search racing an invalidation cannot repopulate
+// the cache with a stale route.
+public class RouteCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final LinkedHashMap<Key, AStarPathfinding.PathResult> entries;
+    private int version = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public RouteCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RouteCache(int capacity) {
+        entries = new LinkedHashMap<Key, AStarPathfinding.PathResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, AStarPathfinding.PathResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized AStarPathfinding.PathResult get(int startFloor, int startX, int startY,
+                                                        int goalFloor, int goalX, int goalY) {
+        AStarPathfinding.PathResult result = entries.get(new Key(startFloor, startX, startY, goalFloor, goalX, goalY));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    // Stores a result that was computed while getVersion() returned computedVersion.
+    public synchronized void put(int startFloor, int startX, int startY,
+                                 int goalFloor, int goalX, int goalY,
+                                 AStarPathfinding.PathResult result, int computedVersion) {
+        if (computedVersion != version) return;
+        entries.put(new Key(startFloor, startX, startY, goalFloor, goalX, goalY), result);
+    }
+
+    // Call whenever the floor maps or the bin positions change.
+    public synchronized void invalidate() {
+        version++;
+        entries.clear();
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Key {
+        final int startFloor, startX, startY, goalFloor, goalX, goalY;
+
+        Key(int startFloor, int startX, int startY, int goalFloor, int goalX, int goalY) {
+            this.startFloor = startFloor;
+            this.startX = startX;
+            this.startY = startY;
+            this.goalFloor = goalFloor;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key other) {
+                return startFloor == other.startFloor && startX == other.startX && startY == other.startY
+                        && goalFloor == other.goalFloor && goalX == other.goalX && goalY == other.goalY;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = startFloor;
+            h = 31 * h + startX;
+            h = 31 * h + startY;
+            h = 31 * h + goalFloor;
+            h = 31 * h + goalX;
+            return 31 * h + goalY;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.vern.vernaduwaste;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs route searches on a dedicated background thread so a tap never blocks rendering or
+// input. Requests are grouped by a view key: submitting a new request for a key supersedes
+// the one still in flight, and a result is only delivered on the main thread if it is still
+// the latest for its key and the listener confirms it is current (same bin, same device cell).
+// A superseded request that has not started never runs. One already running is interrupted;
+// MultiFloorSearch stops at its next interrupt check, while the other engines run to the end
+// and only their result is dropped.
+// submit() and cancel() must be called from the main thread.
+public class RoutingExecutor {
+
+    private static final String TAG = "RoutingExecutor";
+
+    public interface Listener {
+        // Whether the request still matches what the user is looking at.
+        boolean isCurrent(RouteRequest request);
+
+        void onRouteReady(RouteRequest request, AStarPathfinding.PathResult result);
+    }
+
+    // Start and goal cells a search was submitted for.
+    public static class RouteRequest {
+        public final int startFloor, startX, startY;
+        public final int goalFloor, goalX, goalY;
+
+        public RouteRequest(int startFloor, int startX, int startY, int goalFloor, int goalX, int goalY) {
+            this.startFloor = startFloor;
+            this.startX = startX;
+            this.startY = startY;
+            this.goalFloor = goalFloor;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Main-thread only: the in-flight future and its sequence number per view key.
+    private final Map<String, Future<AStarPathfinding.PathResult>> inFlight = new HashMap<>();
+    private final Map<String, Integer> sequences = new HashMap<>();
+
+    public Future<AStarPathfinding.PathResult> submit(String viewKey, RouteRequest request,
+                                                      Callable<AStarPathfinding.PathResult> search,
+                                                      Listener listener) {
+        cancelInFlight(viewKey);
+        int sequence = nextSequence(viewKey);
+        Future<AStarPathfinding.PathResult> future = executor.submit(() -> {
+            long startTime = System.currentTimeMillis();
+            AStarPathfinding.PathResult result = search.call();
+            Log.d(TAG, "Route search for " + viewKey + " took " + (System.currentTimeMillis() - startTime) + " ms.");
+            if (!Thread.currentThread().isInterrupted()) {
+                mainHandler.post(() -> deliver(viewKey, sequence, request, result, listener));
+            }
+            return result;
+        });
+        inFlight.put(viewKey, future);
+        return future;
+    }
+
+    // Cancels the in-flight request for viewKey and drops its result if it is already on its
+    // way to the main thread.
+    public void cancel(String viewKey) {
+        cancelInFlight(viewKey);
+        nextSequence(viewKey);
+    }
+
+    private void cancelInFlight(String viewKey) {
+        Future<AStarPathfinding.PathResult> previous = inFlight.remove(viewKey);
+        if (previous != null && !previous.isDone()) {
+            previous.cancel(true);
+            Log.d(TAG, "Cancelled in-flight route search for " + viewKey + ".");
+        }
+    }
+
+    public void shutdown() {
+        for (Future<AStarPathfinding.PathResult> future : inFlight.values()) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        sequences.clear();
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    private int nextSequence(String viewKey) {
+        Integer current = sequences.get(viewKey);
+        int next = current == null ? 1 : current + 1;
+        sequences.put(viewKey, next);
+        return next;
+    }
+
+    private void deliver(String viewKey, int sequence, RouteRequest request,
+                         AStarPathfinding.PathResult result, Listener listener) {
+        Integer current = sequences.get(viewKey);
+        if (current == null || current != sequence) {
+            Log.d(TAG, "Dropped superseded route result for " + viewKey + ".");
+            return;
+        }
+        inFlight.remove(viewKey);
+        if (!listener.isCurrent(request)) {
+            Log.d(TAG, "Dropped stale route result for " + viewKey + ".");
+            return;
+        }
+        listener.onRouteReady(request, result);
+    }
+}
@@ -0,0 +1,51 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchRouterTest {
+
+    // A batch gives, in input order, what one search answering the queries in turn gives.
+    @Test
+    public void batchesMatchSequentialSearches() {
+        Random random = new Random(31);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 5; round++) {
+                Map<Integer, int[][]> floors = MultiFloorSearchTest.randomBuilding(random, 20, 15);
+                MultiFloorGraph graph = new MultiFloorGraph(floors);
+                List<BatchRouter.RouteQuery> queries = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    queries.add(new BatchRouter.RouteQuery(
+                            1 + random.nextInt(3), random.nextInt(20), random.nextInt(15),
+                            1 + random.nextInt(3), random.nextInt(20), random.nextInt(15)));
+                }
+                BatchRouter router = new BatchRouter(graph, pool);
+                List<AStarPathfinding.PathResult> routes = router.routeAll(queries);
+                float[] costs = router.costAll(queries);
+                MultiFloorSearch sequential = new MultiFloorSearch(graph);
+                assertEquals(queries.size(), routes.size());
+                for (int i = 0; i < queries.size(); i++) {
+                    BatchRouter.RouteQuery q = queries.get(i);
+                    float expected = sequential.findPathCost(q.startFloor, q.startX, q.startY, q.goalFloor, q.goalX, q.goalY);
+                    assertEquals(expected, costs[i], 0f);
+                    if (expected == Float.POSITIVE_INFINITY) {
+                        assertNull(routes.get(i).path);
+                    } else {
+                        assertEquals((int) expected, routes.get(i).path.size() - 1);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
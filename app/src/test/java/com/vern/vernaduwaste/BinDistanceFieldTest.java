@@ -0,0 +1,82 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class BinDistanceFieldTest {
+
+    @Test
+    public void distancesAndRoutesMatchMultiFloorBfs() {
+        Random random = new Random(8);
+        for (int round = 0; round < 10; round++) {
+            Map<Integer, int[][]> floors = MultiFloorSearchTest.randomBuilding(random, 14, 10);
+            MultiFloorGraph graph = new MultiFloorGraph(floors);
+            int binFloor = 1 + random.nextInt(3), binX = random.nextInt(14), binY = random.nextInt(10);
+            floors.get(binFloor)[binY][binX] = FloorModel.WALKABLE;
+            graph.getModel(binFloor).setCell(binX, binY, FloorModel.WALKABLE);
+            BinDistanceField field = BinDistanceField.build(graph, binFloor, binX, binY);
+            assertNotNull(field);
+            for (int floor = 1; floor <= 3; floor++) {
+                for (int y = 0; y < 10; y++) {
+                    for (int x = 0; x < 14; x++) {
+                        int expected = GridTestSupport.multiFloorBfsDistance(floors, floor, x, y, binFloor, binX, binY);
+                        float distance = field.distanceFrom(floor, x, y);
+                        AStarPathfinding.PathResult result = field.route(floor, x, y);
+                        if (expected < 0) {
+                            assertEquals(Float.POSITIVE_INFINITY, distance, 0f);
+                            assertNull(result.path);
+                            continue;
+                        }
+                        assertEquals(expected, distance, 0f);
+                        assertEquals(expected, result.path.size() - 1);
+                        assertSteps(result.path, floor, x, y, binFloor, binX, binY);
+                    }
+                }
+            }
+        }
+    }
+
+    // A wall added after the build leaves the field stale; the descent must stop rather
+    // than step off the graph.
+    @Test
+    public void changedFloorMakesTheFieldStale() {
+        int[][] grid = {{0, 0, 0, 0, 0}};
+        MultiFloorGraph graph = new MultiFloorGraph(Map.of(1, grid));
+        BinDistanceField field = BinDistanceField.build(graph, 1, 4, 0);
+        assertTrue(field.isCurrent());
+        assertEquals(4, field.route(1, 0, 0).path.size() - 1);
+        graph.getModel(1).setCell(2, 0, FloorModel.INACCESSIBLE);
+        assertFalse(field.isCurrent());
+        assertNull(field.route(1, 0, 0).path);
+    }
+
+    @Test
+    public void refusesBinOnBlockedCell() {
+        int[][] grid = {{0, 1}, {0, 0}};
+        MultiFloorGraph graph = new MultiFloorGraph(Map.of(1, grid));
+        assertNull(BinDistanceField.build(graph, 1, 1, 0));
+    }
+
+    private static void assertSteps(List<AStarPathfinding.Node> path, int floor, int x, int y,
+                                    int goalFloor, int goalX, int goalY) {
+        AStarPathfinding.Node first = path.get(0);
+        AStarPathfinding.Node last = path.get(path.size() - 1);
+        assertTrue(first.floor == floor && first.x == x && first.y == y);
+        assertTrue(last.floor == goalFloor && last.x == goalX && last.y == goalY);
+        for (int i = 1; i < path.size(); i++) {
+            AStarPathfinding.Node a = path.get(i - 1);
+            AStarPathfinding.Node b = path.get(i);
+            int planar = Math.max(Math.abs(a.x - b.x), Math.abs(a.y - b.y));
+            assertTrue(a.floor == b.floor ? planar == 1 : planar == 0 && Math.abs(a.floor - b.floor) == 1);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CellRectanglesTest {
+
+    // Every cell is covered by exactly one rectangle, of the cell's own type.
+    @Test
+    public void rectanglesTileTheFloorByType() {
+        Random random = new Random(61);
+        for (int round = 0; round < 200; round++) {
+            int width = 1 + random.nextInt(30);
+            int height = 1 + random.nextInt(30);
+            // Few types and runs of repeats, so rectangles span several rows and columns.
+            int typeCount = 1 + random.nextInt(4);
+            byte[] types = new byte[width * height];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = i > 0 && random.nextInt(4) > 0 ? types[i - 1] : (byte) random.nextInt(typeCount);
+            }
+            if (random.nextBoolean()) {
+                for (int i = width; i < types.length; i++) {
+                    if (random.nextInt(3) > 0) types[i] = types[i - width];
+                }
+            }
+            CellRectangles rectangles = CellRectangles.build(types, width, height);
+            int[] covered = new int[types.length];
+            for (int r = 0; r < rectangles.size(); r++) {
+                int x0 = rectangles.getX(r), y0 = rectangles.getY(r);
+                assertTrue(rectangles.getWidth(r) > 0 && rectangles.getHeight(r) > 0);
+                assertTrue(x0 >= 0 && x0 + rectangles.getWidth(r) <= width);
+                assertTrue(y0 >= 0 && y0 + rectangles.getHeight(r) <= height);
+                for (int y = y0; y < y0 + rectangles.getHeight(r); y++) {
+                    for (int x = x0; x < x0 + rectangles.getWidth(r); x++) {
+                        assertEquals(types[y * width + x], rectangles.getType(r));
+                        covered[y * width + x]++;
+                    }
+                }
+            }
+            for (int count : covered) {
+                assertEquals(1, count);
+            }
+        }
+    }
+
+    // Equal runs in consecutive rows merge into one rectangle.
+    @Test
+    public void stackedRunsMerge() {
+        byte[] types = {
+                0, 0, 1,
+                0, 0, 1,
+                3, 3, 1
+        };
+        CellRectangles rectangles = CellRectangles.build(types, 3, 3);
+        assertEquals(3, rectangles.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+public class DStarLiteTest {
+
+    @Test
+    public void replansOptimallyAsTheStartMoves() {
+        Random random = new Random(11);
+        for (int round = 0; round < 15; round++) {
+            Map<Integer, int[][]> floors = MultiFloorSearchTest.randomBuilding(random, 14, 10);
+            MultiFloorGraph graph = new MultiFloorGraph(floors);
+            int goalFloor = 1 + random.nextInt(3), goalX = random.nextInt(14), goalY = random.nextInt(10);
+            DStarLite planner = new DStarLite(graph, goalFloor, goalX, goalY);
+            for (int move = 0; move < 25; move++) {
+                int floor = 1 + random.nextInt(3), x = random.nextInt(14), y = random.nextInt(10);
+                assertRoute(floors, planner.moveStart(floor, x, y), floor, x, y, goalFloor, goalX, goalY);
+            }
+        }
+    }
+
+    @Test
+    public void repairsTheRouteAfterCellChanges() {
+        Random random = new Random(12);
+        for (int round = 0; round < 10; round++) {
+            Map<Integer, int[][]> floors = MultiFloorSearchTest.randomBuilding(random, 14, 10);
+            MultiFloorGraph graph = new MultiFloorGraph(floors);
+            int goalFloor = 1 + random.nextInt(3), goalX = random.nextInt(14), goalY = random.nextInt(10);
+            DStarLite planner = new DStarLite(graph, goalFloor, goalX, goalY);
+            int startFloor = 1 + random.nextInt(3), startX = random.nextInt(14), startY = random.nextInt(10);
+            planner.moveStart(startFloor, startX, startY);
+            for (int change = 0; change < 20; change++) {
+                int floor = 1 + random.nextInt(3), x = random.nextInt(14), y = random.nextInt(10);
+                if (floors.get(floor)[y][x] == FloorModel.STAIRS) continue;
+                int type = random.nextBoolean() ? FloorModel.WALKABLE : FloorModel.INACCESSIBLE;
+                floors.get(floor)[y][x] = type;
+                AStarPathfinding.PathResult result = planner.setCell(floor, x, y, type);
+                assertRoute(floors, result, startFloor, startX, startY, goalFloor, goalX, goalY);
+            }
+        }
+    }
+
+    private static void assertRoute(Map<Integer, int[][]> floors, AStarPathfinding.PathResult result,
+                                    int floor, int x, int y, int goalFloor, int goalX, int goalY) {
+        int expected = GridTestSupport.multiFloorBfsDistance(floors, floor, x, y, goalFloor, goalX, goalY);
+        if (expected < 0) {
+            assertNull(result.path);
+            return;
+        }
+        assertNotNull(result.path);
+        assertEquals(expected, result.path.size() - 1);
+        AStarPathfinding.Node last = result.path.get(result.path.size() - 1);
+        assertEquals(goalFloor, last.floor);
+        assertEquals(goalX, last.x);
+        assertEquals(goalY, last.y);
+    }
+}
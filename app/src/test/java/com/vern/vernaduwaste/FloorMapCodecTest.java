@@ -0,0 +1,123 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FloorMapCodecTest {
+
+    // Cells, stairs and components survive a write and read, including the label gaps
+    // setCell() leaves behind.
+    @Test
+    public void roundTripKeepsCellsStairsAndComponents() throws IOException {
+        Random random = new Random(51);
+        for (int round = 0; round < 20; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 10 + random.nextInt(30), 10 + random.nextInt(30), 0.4);
+            FloorModel model = FloorModel.compile(3, grid);
+            for (int change = 0; change < 30; change++) {
+                int x = random.nextInt(grid[0].length), y = random.nextInt(grid.length);
+                model.setCell(x, y, random.nextInt(4));
+            }
+            FloorModel read = FloorMapCodec.read(ByteBuffer.wrap(encode(model)));
+            assertEquals(3, read.getFloor());
+            assertArrayEquals(model.toGrid(), read.toGrid());
+            assertEquals(model.getStairs().size(), read.getStairs().size());
+            for (int i = 0; i < model.getStairs().size(); i++) {
+                assertArrayEquals(model.getStairs().get(i), read.getStairs().get(i));
+            }
+            assertEquals(model.getComponentCount(), read.getComponentCount());
+            assertSameComponents(model, read);
+        }
+    }
+
+    // Version 1 files carry no labels; they are flood filled at load time.
+    @Test
+    public void readsVersionOneFiles() throws IOException {
+        int[][] grid = {
+                {0, 1, 0},
+                {2, 1, 3}
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FloorMapCodec.MAGIC);
+        out.writeInt(1);
+        out.writeInt(0);
+        out.writeInt(3);
+        out.writeInt(2);
+        out.write(new byte[]{0, 1, 0, 2, 1, 3});
+        out.writeInt(1);
+        out.writeInt(3);
+        FloorModel read = FloorMapCodec.read(ByteBuffer.wrap(bytes.toByteArray()));
+        assertArrayEquals(grid, read.toGrid());
+        assertEquals(2, read.getComponentCount());
+        assertEquals(read.getComponent(0, 0), read.getComponent(0, 1));
+    }
+
+    @Test
+    public void rejectsCorruptInput() throws IOException {
+        byte[] valid = encode(FloorModel.compile(0, GridTestSupport.randomGrid(new Random(52), 12, 9, 0.3)));
+
+        byte[] badMagic = valid.clone();
+        badMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> FloorMapCodec.read(ByteBuffer.wrap(badMagic)));
+
+        byte[] badVersion = valid.clone();
+        badVersion[7] = 9;
+        assertThrows(IOException.class, () -> FloorMapCodec.read(ByteBuffer.wrap(badVersion)));
+
+        for (int length : new int[]{0, 10, 20, valid.length / 2, valid.length - 1}) {
+            byte[] truncated = Arrays.copyOf(valid, length);
+            assertThrows(IOException.class, () -> FloorMapCodec.read(ByteBuffer.wrap(truncated)));
+        }
+
+        // The stair count follows the 20-byte header and 12 * 9 cells.
+        for (int count : new int[]{-1, Integer.MIN_VALUE, 12 * 9 + 1, Integer.MAX_VALUE}) {
+            byte[] badStairCount = valid.clone();
+            ByteBuffer.wrap(badStairCount).putInt(20 + 12 * 9, count);
+            assertThrows(IOException.class, () -> FloorMapCodec.read(ByteBuffer.wrap(badStairCount)));
+        }
+
+        // The last label is that of cell (11, 8); no label starts with 0x7f.
+        byte[] badLabel = valid.clone();
+        badLabel[valid.length - 4] = 0x7f;
+        assertThrows(IOException.class, () -> FloorMapCodec.read(ByteBuffer.wrap(badLabel)));
+    }
+
+    private static byte[] encode(FloorModel model) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FloorMapCodec.write(model, bytes);
+        return bytes.toByteArray();
+    }
+
+    // Both models split the walkable cells into the same components, whatever the labels.
+    private static void assertSameComponents(FloorModel expected, FloorModel actual) {
+        int cells = expected.getWidth() * expected.getHeight();
+        int[] mapping = new int[expected.getComponentLabelLimit()];
+        Arrays.fill(mapping, FloorModel.NO_COMPONENT);
+        boolean[] used = new boolean[actual.getComponentLabelLimit()];
+        for (int index = 0; index < cells; index++) {
+            int label = expected.getComponentIndex(index);
+            int other = actual.getComponentIndex(index);
+            if (label == FloorModel.NO_COMPONENT) {
+                assertEquals(FloorModel.NO_COMPONENT, other);
+                continue;
+            }
+            if (mapping[label] == FloorModel.NO_COMPONENT) {
+                assertFalse(used[other]);
+                mapping[label] = other;
+                used[other] = true;
+            }
+            assertEquals(mapping[label], other);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class FloorModelTest {
+
+    @Test
+    public void compileKeepsCellsAndStairs() {
+        int[][] grid = {
+                {0, 1, 2},
+                {3, 0, 2}
+        };
+        FloorModel model = FloorModel.compile(4, grid);
+        assertEquals(4, model.getFloor());
+        assertArrayEquals(grid, model.toGrid());
+        assertEquals(2, model.getStairs().size());
+        assertArrayEquals(new int[]{2, 0}, model.getStairs().get(0));
+        assertTrue(model.isWalkable(2, 1));
+        assertTrue(!model.isWalkable(0, 1));
+        assertTrue(!model.isWalkable(-1, 0));
+    }
+
+    // After every setCell() the labels split the walkable cells exactly as BFS does.
+    @Test
+    public void setCellKeepsComponentsInStepWithBfs() {
+        Random random = new Random(21);
+        for (int round = 0; round < 20; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 25, 25, 0.4);
+            FloorModel model = FloorModel.compile(0, grid);
+            assertComponentsMatch(grid, model);
+            for (int change = 0; change < 200; change++) {
+                int x = random.nextInt(25), y = random.nextInt(25);
+                int type = random.nextInt(4);
+                grid[y][x] = type;
+                model.setCell(x, y, type);
+                assertComponentsMatch(grid, model);
+            }
+            assertArrayEquals(grid, model.toGrid());
+        }
+    }
+
+    @Test
+    public void setCellUpdatesStairsAndModCount() {
+        FloorModel model = FloorModel.compile(0, new int[3][3]);
+        model.setCell(1, 1, FloorModel.STAIRS);
+        assertEquals(1, model.getModCount());
+        assertEquals(1, model.getStairs().size());
+        model.setCell(1, 1, FloorModel.STAIRS);
+        assertEquals(1, model.getModCount());
+        model.setCell(1, 1, FloorModel.ROOM);
+        assertEquals(0, model.getStairs().size());
+        assertEquals(2, model.getModCount());
+    }
+
+    // Isolated single cells give more components than a char label can hold.
+    @Test
+    public void labelsWidenForFloorsWithManyComponents() {
+        int size = 520;
+        int[][] grid = new int[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid[y][x] = x % 2 == 0 && y % 2 == 0 ? FloorModel.WALKABLE : FloorModel.INACCESSIBLE;
+            }
+        }
+        FloorModel model = FloorModel.compile(0, grid);
+        assertEquals(260 * 260, model.getComponentCount());
+        assertComponentsMatch(grid, model);
+        long cells = (long) size * size;
+        assertEquals(cells + (cells + 63) / 64 * 8 + 4 * cells + 4 * cells, model.getMemoryBytes());
+        // Joining two isolated cells merges their components.
+        grid[0][1] = FloorModel.WALKABLE;
+        model.setCell(1, 0, FloorModel.WALKABLE);
+        assertEquals(260 * 260 - 1, model.getComponentCount());
+        assertEquals(model.getComponent(0, 0), model.getComponent(2, 0));
+    }
+
+    // Repeated splits and joins of one corridor keep retiring labels; compaction keeps them
+    // within the char range.
+    @Test
+    public void labelsStayNarrowUnderRepeatedSplits() {
+        int[][] grid = new int[1][9];
+        FloorModel model = FloorModel.compile(0, grid);
+        for (int i = 0; i < 70000; i++) {
+            model.setCell(4, 0, FloorModel.INACCESSIBLE);
+            model.setCell(4, 0, FloorModel.WALKABLE);
+        }
+        assertEquals(1, model.getComponentCount());
+        assertTrue(model.getComponentLabelLimit() < Character.MAX_VALUE);
+        assertEquals(9 + 8 + 2 * 9 + 4 * 9, model.getMemoryBytes());
+    }
+
+    // Each cell snaps to a walkable cell at the smallest Chebyshev distance, also after the
+    // map has been repaired around many changed cells.
+    @Test
+    public void nearestWalkableMatchesBruteForce() {
+        Random random = new Random(22);
+        for (int round = 0; round < 30; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 20, 15, 0.5 + random.nextDouble() * 0.49);
+            FloorModel model = FloorModel.compile(0, grid);
+            assertNearestWalkable(grid, model);
+            for (int change = 0; change < 60; change++) {
+                int x = random.nextInt(20), y = random.nextInt(15);
+                int type = random.nextInt(3) > 0 ? FloorModel.ROOM : FloorModel.WALKABLE;
+                grid[y][x] = type;
+                model.setCell(x, y, type);
+                assertNearestWalkable(grid, model);
+            }
+        }
+    }
+
+    @Test
+    public void nearestWalkableIsNullWithoutWalkableCells() {
+        int[][] grid = {{1, 3}, {3, 1}};
+        assertNull(FloorModel.compile(0, grid).nearestWalkable(1, 1));
+    }
+
+    // Removing the last walkable cell leaves nothing to snap to; adding one back snaps everything to it.
+    @Test
+    public void nearestWalkableFollowsTheLastWalkableCell() {
+        FloorModel model = FloorModel.compile(0, new int[][]{{1, 1, 1}, {1, 0, 1}});
+        model.setCell(1, 1, FloorModel.ROOM);
+        assertNull(model.nearestWalkable(0, 0));
+        model.setCell(2, 0, FloorModel.STAIRS);
+        assertArrayEquals(new int[]{2, 0}, model.nearestWalkable(0, 1));
+    }
+
+    @Test
+    public void memoryBytesCountEveryPerCellArray() {
+        FloorModel model = FloorModel.compile(0, new int[10][10]);
+        assertEquals(100 + 2 * 8 + 2 * 100 + 4 * 100, model.getMemoryBytes());
+    }
+
+    private static void assertComponentsMatch(int[][] grid, FloorModel model) {
+        int width = grid[0].length;
+        int height = grid.length;
+        int[] bfsLabels = floodLabels(grid);
+        Map<Integer, Integer> modelToBfs = new HashMap<>();
+        Map<Integer, Integer> bfsToModel = new HashMap<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int label = model.getComponent(x, y);
+                int expected = bfsLabels[y * width + x];
+                if (expected < 0) {
+                    assertEquals(FloorModel.NO_COMPONENT, label);
+                    continue;
+                }
+                assertTrue(label >= 0 && label < model.getComponentLabelLimit());
+                assertEquals(expected, (int) modelToBfs.computeIfAbsent(label, l -> expected));
+                assertEquals(label, (int) bfsToModel.computeIfAbsent(expected, l -> label));
+            }
+        }
+        assertEquals(bfsToModel.size(), model.getComponentCount());
+    }
+
+    private static int[] floodLabels(int[][] grid) {
+        int width = grid[0].length;
+        int height = grid.length;
+        int[] labels = new int[width * height];
+        Arrays.fill(labels, -1);
+        int[] queue = new int[width * height];
+        int next = 0;
+        for (int seed = 0; seed < labels.length; seed++) {
+            if (labels[seed] >= 0 || !GridTestSupport.isWalkable(grid, seed % width, seed / width)) continue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = seed;
+            labels[seed] = next;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                    int nx = current % width + dir[0];
+                    int ny = current / width + dir[1];
+                    if (!GridTestSupport.isWalkable(grid, nx, ny) || labels[ny * width + nx] >= 0) continue;
+                    labels[ny * width + nx] = next;
+                    queue[tail++] = ny * width + nx;
+                }
+            }
+            next++;
+        }
+        return labels;
+    }
+
+    private static void assertNearestWalkable(int[][] grid, FloorModel model) {
+        int width = grid[0].length;
+        int height = grid.length;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int best = Integer.MAX_VALUE;
+                for (int wy = 0; wy < height; wy++) {
+                    for (int wx = 0; wx < width; wx++) {
+                        if (GridTestSupport.isWalkable(grid, wx, wy)) {
+                            best = Math.min(best, Math.max(Math.abs(wx - x), Math.abs(wy - y)));
+                        }
+                    }
+                }
+                int[] nearest = model.nearestWalkable(x, y);
+                if (best == Integer.MAX_VALUE) {
+                    assertNull(nearest);
+                    continue;
+                }
+                assertTrue(GridTestSupport.isWalkable(grid, nearest[0], nearest[1]));
+                assertEquals(best, Math.max(Math.abs(nearest[0] - x), Math.abs(nearest[1] - y)));
+            }
+        }
+    }
+}
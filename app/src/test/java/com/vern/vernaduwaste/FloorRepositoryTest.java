@@ -0,0 +1,21 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+public class FloorRepositoryTest {
+
+    @Test
+    public void discoverFloorsReadsBinaryAndJsonAssetNames() {
+        String[] names = {"floor3.bin", "floor1.json", "floor3.json", "floor12.bin", "floorplan.json",
+                "floor2.png", "images", "xfloor4.bin"};
+        assertArrayEquals(new int[]{1, 3, 12}, FloorRepository.discoverFloors(names));
+    }
+
+    @Test
+    public void discoverFloorsHandlesMissingAssets() {
+        assertArrayEquals(new int[0], FloorRepository.discoverFloors(null));
+        assertArrayEquals(new int[0], FloorRepository.discoverFloors(new String[0]));
+    }
+}
@@ -0,0 +1,127 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Random floor grids and a plain breadth-first search to check the engines against.
+final class GridTestSupport {
+
+    private GridTestSupport() {
+    }
+
+    // width x height grid where each cell is inaccessible with probability wallDensity.
+    static int[][] randomGrid(Random random, int width, int height, double wallDensity) {
+        int[][] grid = new int[height][width];
+        for (int[] row : grid) {
+            for (int x = 0; x < width; x++) {
+                row[x] = random.nextDouble() < wallDensity ? FloorModel.INACCESSIBLE : FloorModel.WALKABLE;
+            }
+        }
+        return grid;
+    }
+
+    static boolean isWalkable(int[][] grid, int x, int y) {
+        return y >= 0 && y < grid.length && x >= 0 && x < grid[y].length
+                && (grid[y][x] == FloorModel.WALKABLE || grid[y][x] == FloorModel.STAIRS);
+    }
+
+    // Step count of the shortest 8-connected route, or -1 when there is none.
+    static int bfsDistance(int[][] grid, int startX, int startY, int goalX, int goalY) {
+        if (!isWalkable(grid, startX, startY) || !isWalkable(grid, goalX, goalY)) return -1;
+        int width = grid[0].length;
+        int[] distance = new int[width * grid.length];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        distance[startY * width + startX] = 0;
+        queue.add(startY * width + startX);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                int nx = current % width + dir[0];
+                int ny = current / width + dir[1];
+                if (!isWalkable(grid, nx, ny) || distance[ny * width + nx] >= 0) continue;
+                distance[ny * width + nx] = distance[current] + 1;
+                queue.add(ny * width + nx);
+            }
+        }
+        return distance[goalY * width + goalX];
+    }
+
+    // Shortest route over several floors with 8-connected moves and one step between stair
+    // cells at the same (x, y) on adjacent floors, or -1. All grids must have the same size.
+    static int multiFloorBfsDistance(Map<Integer, int[][]> floors, int startFloor, int startX, int startY,
+                                     int goalFloor, int goalX, int goalY) {
+        int[][] first = floors.get(startFloor);
+        int width = first[0].length;
+        int height = first.length;
+        int cells = width * height;
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (int floor : floors.keySet()) {
+            lowest = Math.min(lowest, floor);
+            highest = Math.max(highest, floor);
+        }
+        if (!isWalkable(first, startX, startY) || !isWalkable(floors.get(goalFloor), goalX, goalY)) return -1;
+        int[] distance = new int[(highest - lowest + 1) * cells];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int start = (startFloor - lowest) * cells + startY * width + startX;
+        distance[start] = 0;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            int floor = current / cells + lowest;
+            int cell = current % cells;
+            int x = cell % width;
+            int y = cell / width;
+            int[][] grid = floors.get(floor);
+            for (int[] dir : AStarPathfinding.DIRECTIONS) {
+                int nx = x + dir[0];
+                int ny = y + dir[1];
+                if (!isWalkable(grid, nx, ny)) continue;
+                int next = current - cell + ny * width + nx;
+                if (distance[next] < 0) {
+                    distance[next] = distance[current] + 1;
+                    queue.add(next);
+                }
+            }
+            if (grid[y][x] != FloorModel.STAIRS) continue;
+            for (int other = floor - 1; other <= floor + 1; other += 2) {
+                int[][] otherGrid = floors.get(other);
+                if (otherGrid == null || otherGrid[y][x] != FloorModel.STAIRS) continue;
+                int next = (other - lowest) * cells + cell;
+                if (distance[next] < 0) {
+                    distance[next] = distance[current] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distance[(goalFloor - lowest) * cells + goalY * width + goalX];
+    }
+
+    // Asserts that path runs from start to goal over walkable cells in single 8-connected steps.
+    static void assertValidPath(int[][] grid, List<AStarPathfinding.Node> path,
+                                int startX, int startY, int goalX, int goalY) {
+        AStarPathfinding.Node first = path.get(0);
+        AStarPathfinding.Node last = path.get(path.size() - 1);
+        assertEquals(startX, first.x);
+        assertEquals(startY, first.y);
+        assertEquals(goalX, last.x);
+        assertEquals(goalY, last.y);
+        for (int i = 0; i < path.size(); i++) {
+            AStarPathfinding.Node node = path.get(i);
+            assertTrue("cell (" + node.x + ", " + node.y + ") is not walkable", isWalkable(grid, node.x, node.y));
+            if (i > 0) {
+                AStarPathfinding.Node previous = path.get(i - 1);
+                assertEquals("not a single step", 1,
+                        Math.max(Math.abs(node.x - previous.x), Math.abs(node.y - previous.y)));
+            }
+        }
+    }
+}
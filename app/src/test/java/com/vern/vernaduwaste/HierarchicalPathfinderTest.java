@@ -0,0 +1,101 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class HierarchicalPathfinderTest {
+
+    // Finds a valid route exactly when BFS does, for every cluster size and wall density.
+    @Test
+    public void findsEveryRouteBfsFinds() {
+        Random random = new Random(9);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        for (int clusterSize : new int[]{4, 8, 16}) {
+            for (int round = 0; round < 60; round++) {
+                int width = 20 + random.nextInt(40);
+                int height = 20 + random.nextInt(40);
+                int[][] grid = GridTestSupport.randomGrid(random, width, height, 0.2 + random.nextDouble() * 0.3);
+                HierarchicalPathfinder hierarchy = new HierarchicalPathfinder(pathfinder, grid, clusterSize);
+                for (int query = 0; query < 40; query++) {
+                    assertQuery(grid, hierarchy, random);
+                }
+            }
+        }
+    }
+
+    // Corner cuts are the only way across these cluster borders.
+    @Test
+    public void crossesBordersDiagonally() {
+        int[][] grid = new int[8][8];
+        for (int[] row : grid) {
+            Arrays.fill(row, FloorModel.INACCESSIBLE);
+        }
+        // (3, 3) -> (4, 4) crosses the corner of four 4x4 clusters; (4, 4) -> (3, 5) and
+        // (3, 5) -> (4, 6) cross the vertical border diagonally.
+        grid[3][3] = FloorModel.WALKABLE;
+        grid[4][4] = FloorModel.WALKABLE;
+        grid[5][3] = FloorModel.WALKABLE;
+        grid[6][4] = FloorModel.WALKABLE;
+        HierarchicalPathfinder hierarchy = new HierarchicalPathfinder(new AStarPathfinding(), grid, 4);
+        AStarPathfinding.AStarResult result = hierarchy.findPath(3, 3, 4, 6);
+        GridTestSupport.assertValidPath(grid, result.path, 3, 3, 4, 6);
+        assertEquals(3, result.path.size() - 1);
+    }
+
+    @Test
+    public void updateCellKeepsRoutesInStepWithTheGrid() {
+        Random random = new Random(10);
+        int[][] grid = GridTestSupport.randomGrid(random, 40, 40, 0.3);
+        HierarchicalPathfinder hierarchy = new HierarchicalPathfinder(new AStarPathfinding(), grid, 8);
+        for (int change = 0; change < 300; change++) {
+            hierarchy.updateCell(random.nextInt(40), random.nextInt(40),
+                    random.nextBoolean() ? FloorModel.WALKABLE : FloorModel.INACCESSIBLE);
+            assertQuery(grid, hierarchy, random);
+        }
+    }
+
+    // Model queries reuse one expanded grid until setCell() changes the model.
+    @Test
+    public void modelQueriesFollowSetCell() {
+        Random random = new Random(11);
+        int[][] grid = GridTestSupport.randomGrid(random, 30, 30, 0.3);
+        FloorModel model = FloorModel.compile(0, grid);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.HPA);
+        for (int change = 0; change < 200; change++) {
+            int x = random.nextInt(30), y = random.nextInt(30);
+            int type = random.nextBoolean() ? FloorModel.WALKABLE : FloorModel.INACCESSIBLE;
+            grid[y][x] = type;
+            model.setCell(x, y, type);
+            int sx = random.nextInt(30), sy = random.nextInt(30), gx = random.nextInt(30), gy = random.nextInt(30);
+            AStarPathfinding.AStarResult result = pathfinder.aStar(model, sx, sy, gx, gy);
+            if (GridTestSupport.bfsDistance(grid, sx, sy, gx, gy) < 0) {
+                assertNull(result.path);
+            } else {
+                GridTestSupport.assertValidPath(grid, result.path, sx, sy, gx, gy);
+            }
+        }
+    }
+
+    private static void assertQuery(int[][] grid, HierarchicalPathfinder hierarchy, Random random) {
+        int width = grid[0].length;
+        int height = grid.length;
+        int sx = random.nextInt(width), sy = random.nextInt(height);
+        int gx = random.nextInt(width), gy = random.nextInt(height);
+        int expected = GridTestSupport.bfsDistance(grid, sx, sy, gx, gy);
+        AStarPathfinding.AStarResult result = hierarchy.findPath(sx, sy, gx, gy);
+        if (expected < 0) {
+            assertNull(result.path);
+            return;
+        }
+        assertTrue("no route from (" + sx + ", " + sy + ") to (" + gx + ", " + gy + ")", result.path != null);
+        GridTestSupport.assertValidPath(grid, result.path, sx, sy, gx, gy);
+        assertTrue(result.path.size() - 1 >= expected);
+    }
+}
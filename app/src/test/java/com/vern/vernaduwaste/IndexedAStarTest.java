@@ -0,0 +1,62 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class IndexedAStarTest {
+
+    @Test
+    public void findsRouteExactlyWhenBfsDoes() {
+        Random random = new Random(1);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.INDEXED);
+        for (int round = 0; round < 200; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 24, 20, 0.3);
+            int sx = random.nextInt(24), sy = random.nextInt(20), gx = random.nextInt(24), gy = random.nextInt(20);
+            int expected = GridTestSupport.bfsDistance(grid, sx, sy, gx, gy);
+            AStarPathfinding.AStarResult result = pathfinder.aStar(grid, sx, sy, gx, gy);
+            if (expected < 0) {
+                assertNull(result.path);
+            } else {
+                assertNotNull(result.path);
+                GridTestSupport.assertValidPath(grid, result.path, sx, sy, gx, gy);
+            }
+        }
+    }
+
+    @Test
+    public void gridAndModelSearchesAgree() {
+        Random random = new Random(2);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        IndexedAStar search = new IndexedAStar(pathfinder);
+        for (int round = 0; round < 100; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 16, 16, 0.25);
+            FloorModel model = FloorModel.compile(1, grid);
+            int sx = random.nextInt(16), sy = random.nextInt(16), gx = random.nextInt(16), gy = random.nextInt(16);
+            AStarPathfinding.AStarResult fromGrid = search.search(grid, sx, sy, gx, gy);
+            AStarPathfinding.AStarResult fromModel = search.search(model, sx, sy, gx, gy);
+            assertEquals(fromGrid.exploredCount, fromModel.exploredCount);
+            assertEquals(fromGrid.path == null, fromModel.path == null);
+            if (fromGrid.path != null) assertEquals(fromGrid.path.size(), fromModel.path.size());
+        }
+    }
+
+    @Test
+    public void rejectsBlockedEndpoints() {
+        int[][] grid = {
+                {0, 1, 0},
+                {0, 1, 0},
+                {0, 1, 0}
+        };
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        assertNull(pathfinder.aStar(grid, 1, 1, 0, 0).path);
+        assertNull(pathfinder.aStar(grid, 0, 0, 2, 2).path);
+        assertNull(pathfinder.aStar(grid, -1, 0, 0, 2).path);
+        assertEquals(3, pathfinder.aStar(grid, 0, 0, 0, 2).path.size());
+    }
+}
@@ -0,0 +1,70 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class IndexedMinHeapTest {
+
+    @Test
+    public void pollsInKeyOrderAfterDecreaseKeyAndRemove() {
+        Random random = new Random(3);
+        int n = 500;
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        float[] keys = new float[n];
+        for (int id = 0; id < n; id++) {
+            keys[id] = random.nextFloat() * 100;
+            heap.push(id, keys[id]);
+        }
+        for (int id = 0; id < n; id += 3) {
+            keys[id] -= 50;
+            heap.push(id, keys[id]);
+        }
+        int removed = 0;
+        for (int id = 1; id < n; id += 7) {
+            heap.remove(id);
+            keys[id] = Float.NaN;
+            removed++;
+        }
+        float previous = Float.NEGATIVE_INFINITY;
+        int polled = 0;
+        while (!heap.isEmpty()) {
+            int id = heap.poll();
+            assertFalse(Float.isNaN(keys[id]));
+            assertTrue(keys[id] >= previous);
+            previous = keys[id];
+            polled++;
+        }
+        assertEquals(n - removed, polled);
+    }
+
+    @Test
+    public void breaksTiesOnSecondaryKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.push(0, 1f, 3f);
+        heap.push(1, 1f, 1f);
+        heap.push(2, 1f, 2f);
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(0, heap.poll());
+    }
+
+    @Test
+    public void clearAndGrowKeepIdsReusable() {
+        IndexedMinHeap heap = new IndexedMinHeap(2);
+        heap.push(0, 5f);
+        heap.push(1, 4f);
+        heap.clear();
+        assertFalse(heap.contains(0));
+        heap.ensureCapacity(10);
+        heap.push(9, 2f);
+        heap.push(0, 1f);
+        assertEquals(2, heap.size());
+        assertEquals(0, heap.poll());
+        assertEquals(9, heap.poll());
+    }
+}
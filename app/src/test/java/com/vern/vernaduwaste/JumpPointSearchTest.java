@@ -0,0 +1,50 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class JumpPointSearchTest {
+
+    @Test
+    public void routesAreOptimalAgainstBfs() {
+        Random random = new Random(4);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.JPS);
+        for (int round = 0; round < 300; round++) {
+            int width = 8 + random.nextInt(30);
+            int height = 8 + random.nextInt(30);
+            int[][] grid = GridTestSupport.randomGrid(random, width, height, 0.1 + random.nextDouble() * 0.3);
+            int sx = random.nextInt(width), sy = random.nextInt(height);
+            int gx = random.nextInt(width), gy = random.nextInt(height);
+            int expected = GridTestSupport.bfsDistance(grid, sx, sy, gx, gy);
+            AStarPathfinding.AStarResult result = pathfinder.aStar(grid, sx, sy, gx, gy);
+            if (expected < 0) {
+                assertNull(result.path);
+                continue;
+            }
+            assertNotNull(result.path);
+            GridTestSupport.assertValidPath(grid, result.path, sx, sy, gx, gy);
+            assertEquals(expected, result.path.size() - 1);
+        }
+    }
+
+    @Test
+    public void modelQueriesMatchGridQueries() {
+        Random random = new Random(5);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.JPS);
+        int[][] grid = GridTestSupport.randomGrid(random, 32, 32, 0.25);
+        FloorModel model = FloorModel.compile(1, grid);
+        for (int round = 0; round < 100; round++) {
+            int sx = random.nextInt(32), sy = random.nextInt(32), gx = random.nextInt(32), gy = random.nextInt(32);
+            int expected = GridTestSupport.bfsDistance(grid, sx, sy, gx, gy);
+            AStarPathfinding.AStarResult result = pathfinder.aStar(model, sx, sy, gx, gy);
+            assertEquals(expected, result.path == null ? -1 : result.path.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LandmarkTableTest {
+
+    // The landmark bound never exceeds the true distance between two connected cells.
+    @Test
+    public void lowerBoundIsAdmissible() {
+        Random random = new Random(41);
+        for (int round = 0; round < 20; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 30, 20, 0.3);
+            FloorModel model = FloorModel.compile(0, grid);
+            LandmarkTable table = LandmarkTable.build(model, LandmarkTable.DEFAULT_LANDMARKS);
+            assertTrue(table.getLandmarkCount() <= LandmarkTable.DEFAULT_LANDMARKS);
+            for (int query = 0; query < 50; query++) {
+                int sx = random.nextInt(30), sy = random.nextInt(20), gx = random.nextInt(30), gy = random.nextInt(20);
+                int distance = GridTestSupport.bfsDistance(grid, sx, sy, gx, gy);
+                if (distance < 0) continue;
+                assertTrue(table.lowerBound(sy * 30 + sx, gy * 30 + gx) <= distance);
+            }
+        }
+    }
+
+    @Test
+    public void altRoutesAreOptimal() {
+        Random random = new Random(42);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.ALT);
+        for (int round = 0; round < 20; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 30, 20, 0.3);
+            FloorModel model = FloorModel.compile(0, grid);
+            for (int query = 0; query < 30; query++) {
+                assertOptimal(pathfinder, grid, model, random);
+            }
+        }
+    }
+
+    // A changed floor gets a fresh table, and routes follow the change.
+    @Test
+    public void tablesAreRebuiltAfterSetCell() {
+        Random random = new Random(43);
+        int[][] grid = GridTestSupport.randomGrid(random, 30, 20, 0.3);
+        FloorModel model = FloorModel.compile(0, grid);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.ALT);
+        LandmarkTable table = pathfinder.getLandmarks(model);
+        assertSame(table, pathfinder.getLandmarks(model));
+        for (int change = 0; change < 50; change++) {
+            int x = random.nextInt(30), y = random.nextInt(20);
+            int type = grid[y][x] == FloorModel.WALKABLE ? FloorModel.INACCESSIBLE : FloorModel.WALKABLE;
+            grid[y][x] = type;
+            model.setCell(x, y, type);
+            assertTrue(!table.isCurrent(model));
+            LandmarkTable rebuilt = pathfinder.getLandmarks(model);
+            assertNotSame(table, rebuilt);
+            assertTrue(rebuilt.isCurrent(model));
+            table = rebuilt;
+            assertOptimal(pathfinder, grid, model, random);
+        }
+    }
+
+    @Test
+    public void floorWithoutWalkableCellsHasNoLandmarks() {
+        FloorModel model = FloorModel.compile(0, new int[][]{{1, 1}, {3, 3}});
+        assertEquals(0, LandmarkTable.build(model, 4).getLandmarkCount());
+    }
+
+    private static void assertOptimal(AStarPathfinding pathfinder, int[][] grid, FloorModel model, Random random) {
+        int width = grid[0].length;
+        int height = grid.length;
+        int sx = random.nextInt(width), sy = random.nextInt(height);
+        int gx = random.nextInt(width), gy = random.nextInt(height);
+        int expected = GridTestSupport.bfsDistance(grid, sx, sy, gx, gy);
+        AStarPathfinding.AStarResult result = pathfinder.aStar(model, sx, sy, gx, gy);
+        if (expected < 0) {
+            assertNull(result.path);
+            return;
+        }
+        GridTestSupport.assertValidPath(grid, result.path, sx, sy, gx, gy);
+        assertEquals(expected, result.path.size() - 1);
+    }
+}
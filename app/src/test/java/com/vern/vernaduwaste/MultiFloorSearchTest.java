@@ -0,0 +1,137 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+public class MultiFloorSearchTest {
+
+    // Three random floors with a few stairs shared by adjacent floors.
+    static Map<Integer, int[][]> randomBuilding(Random random, int width, int height) {
+        Map<Integer, int[][]> floors = new HashMap<>();
+        for (int floor = 1; floor <= 3; floor++) {
+            floors.put(floor, GridTestSupport.randomGrid(random, width, height, 0.3));
+        }
+        for (int floor = 1; floor < 3; floor++) {
+            for (int i = 0; i < 3; i++) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                floors.get(floor)[y][x] = FloorModel.STAIRS;
+                floors.get(floor + 1)[y][x] = FloorModel.STAIRS;
+            }
+        }
+        return floors;
+    }
+
+    @Test
+    public void routeCostsMatchMultiFloorBfs() {
+        Random random = new Random(6);
+        for (int round = 0; round < 20; round++) {
+            Map<Integer, int[][]> floors = randomBuilding(random, 16, 12);
+            MultiFloorSearch search = new MultiFloorSearch(new MultiFloorGraph(floors));
+            for (int query = 0; query < 20; query++) {
+                int startFloor = 1 + random.nextInt(3), goalFloor = 1 + random.nextInt(3);
+                int sx = random.nextInt(16), sy = random.nextInt(12), gx = random.nextInt(16), gy = random.nextInt(12);
+                int expected = GridTestSupport.multiFloorBfsDistance(floors, startFloor, sx, sy, goalFloor, gx, gy);
+                AStarPathfinding.PathResult result = search.findPath(startFloor, sx, sy, goalFloor, gx, gy);
+                if (expected < 0) {
+                    assertNull(result.path);
+                    assertEquals(Float.POSITIVE_INFINITY, search.findPathCost(startFloor, sx, sy, goalFloor, gx, gy), 0f);
+                    continue;
+                }
+                assertNotNull(result.path);
+                assertEquals(expected, result.path.size() - 1);
+                assertEquals(expected, search.findPathCost(startFloor, sx, sy, goalFloor, gx, gy), 0f);
+                int nodes = 0;
+                for (List<AStarPathfinding.Node> segment : result.segments) {
+                    for (AStarPathfinding.Node node : segment) {
+                        assertEquals(segment.get(0).floor, node.floor);
+                    }
+                    nodes += segment.size();
+                }
+                assertEquals(result.path.size(), nodes);
+            }
+        }
+    }
+
+    @Test
+    public void routeThatRevisitsAFloorKeepsEverySegment() {
+        // Floor 1 is cut in two by a wall; floor 2 joins the halves through two stairs.
+        int[][] lower = {
+                {0, 0, 1, 0, 0},
+                {2, 0, 1, 0, 2},
+                {0, 0, 1, 0, 0}
+        };
+        int[][] upper = {
+                {1, 1, 1, 1, 1},
+                {2, 0, 0, 0, 2},
+                {1, 1, 1, 1, 1}
+        };
+        Map<Integer, int[][]> floors = new HashMap<>();
+        floors.put(1, lower);
+        floors.put(2, upper);
+        MultiFloorSearch search = new MultiFloorSearch(new MultiFloorGraph(floors));
+        AStarPathfinding.PathResult result = search.findPath(1, 1, 0, 1, 3, 0);
+        assertNotNull(result.path);
+        assertEquals(3, result.segments.size());
+        assertEquals(1, result.segments.get(0).get(0).floor);
+        assertEquals(2, result.segments.get(1).get(0).floor);
+        assertEquals(1, result.segments.get(2).get(0).floor);
+        assertEquals(0, result.startStair.x);
+        assertEquals(4, result.endStair.x);
+    }
+
+    @Test
+    public void nearestGoalSearchPicksTheCheapestGoal() {
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            Map<Integer, int[][]> floors = randomBuilding(random, 14, 10);
+            MultiFloorGraph graph = new MultiFloorGraph(floors);
+            MultiFloorSearch search = new MultiFloorSearch(graph);
+            int sx = random.nextInt(14), sy = random.nextInt(10);
+            int[] goals = new int[4];
+            int best = -1;
+            for (int i = 0; i < goals.length; i++) {
+                int floor = 1 + random.nextInt(3), x = random.nextInt(14), y = random.nextInt(10);
+                goals[i] = graph.nodeId(floor, x, y);
+                int d = GridTestSupport.multiFloorBfsDistance(floors, 1, sx, sy, floor, x, y);
+                if (d >= 0 && (best < 0 || d < best)) best = d;
+            }
+            AStarPathfinding.PathResult result = search.findPathToNearest(1, sx, sy, goals);
+            if (best < 0) {
+                assertNull(result.path);
+                continue;
+            }
+            assertNotNull(result.path);
+            assertEquals(best, result.path.size() - 1);
+            AStarPathfinding.Node last = result.path.get(result.path.size() - 1);
+            boolean isGoal = false;
+            for (int goal : goals) {
+                isGoal |= goal == graph.nodeId(last.floor, last.x, last.y);
+            }
+            assertTrue(isGoal);
+        }
+    }
+
+    @Test
+    public void interruptedSearchStops() {
+        MultiFloorSearch search = new MultiFloorSearch(new MultiFloorGraph(Map.of(1, new int[40][40])));
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> search.findPath(1, 0, 0, 1, 39, 39));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(39, search.findPath(1, 0, 0, 1, 39, 39).path.size() - 1);
+    }
+}
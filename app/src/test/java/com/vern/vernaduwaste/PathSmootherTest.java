@@ -0,0 +1,57 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class PathSmootherTest {
+
+    @Test
+    public void lineOfSightStopsAtWalls() {
+        int[][] grid = {
+                {0, 0, 0, 0},
+                {0, 1, 1, 0},
+                {0, 0, 0, 0}
+        };
+        assertTrue(PathSmoother.hasLineOfSight(grid, 0, 0, 3, 0));
+        assertFalse(PathSmoother.hasLineOfSight(grid, 0, 1, 3, 1));
+        assertFalse(PathSmoother.hasLineOfSight(grid, 0, 0, 3, 2));
+        assertFalse(PathSmoother.hasLineOfSight(grid, 0, 0, 4, 0));
+    }
+
+    // Every turning point sees the next one, and the grid and model overloads agree.
+    @Test
+    public void turningPointsSeeEachOther() {
+        Random random = new Random(13);
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        for (int round = 0; round < 100; round++) {
+            int[][] grid = GridTestSupport.randomGrid(random, 20, 20, 0.2);
+            FloorModel model = FloorModel.compile(1, grid);
+            int sx = random.nextInt(20), sy = random.nextInt(20), gx = random.nextInt(20), gy = random.nextInt(20);
+            List<AStarPathfinding.Node> path = pathfinder.aStar(grid, sx, sy, gx, gy).path;
+            if (path == null) continue;
+            List<AStarPathfinding.Node> turningPoints = PathSmoother.smooth(grid, path);
+            assertEquals(turningPoints.size(), PathSmoother.smooth(model, path).size());
+            assertEquals(path.get(0), turningPoints.get(0));
+            assertEquals(path.get(path.size() - 1), turningPoints.get(turningPoints.size() - 1));
+            for (int i = 1; i < turningPoints.size(); i++) {
+                AStarPathfinding.Node a = turningPoints.get(i - 1);
+                AStarPathfinding.Node b = turningPoints.get(i);
+                assertTrue(PathSmoother.hasLineOfSight(grid, a.x, a.y, b.x, b.y));
+                assertTrue(PathSmoother.hasLineOfSight(model, a.x, a.y, b.x, b.y));
+            }
+        }
+    }
+
+    @Test
+    public void straightRouteKeepsOnlyItsEnds() {
+        int[][] grid = new int[1][6];
+        List<AStarPathfinding.Node> path = new AStarPathfinding().aStar(grid, 0, 0, 5, 0).path;
+        assertEquals(2, PathSmoother.smooth(grid, path).size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+public class RouteCacheTest {
+
+    private static AStarPathfinding.PathResult result() {
+        return new AStarPathfinding.PathResult(null, 0, null, null);
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        RouteCache cache = new RouteCache();
+        AStarPathfinding.PathResult stored = result();
+        assertNull(cache.get(1, 0, 0, 2, 3, 3));
+        cache.put(1, 0, 0, 2, 3, 3, stored, cache.getVersion());
+        assertSame(stored, cache.get(1, 0, 0, 2, 3, 3));
+        assertNull(cache.get(1, 0, 0, 2, 3, 4));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        RouteCache cache = new RouteCache(2);
+        AStarPathfinding.PathResult a = result();
+        AStarPathfinding.PathResult b = result();
+        AStarPathfinding.PathResult c = result();
+        cache.put(1, 0, 0, 1, 0, 1, a, cache.getVersion());
+        cache.put(1, 0, 0, 1, 0, 2, b, cache.getVersion());
+        cache.get(1, 0, 0, 1, 0, 1);
+        cache.put(1, 0, 0, 1, 0, 3, c, cache.getVersion());
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get(1, 0, 0, 1, 0, 1));
+        assertNull(cache.get(1, 0, 0, 1, 0, 2));
+        assertSame(c, cache.get(1, 0, 0, 1, 0, 3));
+    }
+
+    @Test
+    public void refusesResultsComputedBeforeInvalidation() {
+        RouteCache cache = new RouteCache();
+        int version = cache.getVersion();
+        cache.put(1, 0, 0, 1, 1, 1, result(), version);
+        cache.invalidate();
+        assertEquals(0, cache.size());
+        cache.put(1, 0, 0, 1, 1, 1, result(), version);
+        assertNull(cache.get(1, 0, 0, 1, 1, 1));
+    }
+
+    @Test
+    public void pathfinderServesRepeatedQueriesFromCache() {
+        int[][] grid = {
+                {0, 0, 0},
+                {1, 1, 0},
+                {0, 0, 0}
+        };
+        MultiFloorGraph graph = new MultiFloorGraph(Map.of(1, grid));
+        AStarPathfinding pathfinder = new AStarPathfinding();
+        AStarPathfinding.PathResult first = pathfinder.findPathAcrossFloors(graph, 1, 0, 0, 1, 0, 2);
+        AStarPathfinding.PathResult second = pathfinder.findPathAcrossFloors(graph, 1, 0, 0, 1, 0, 2);
+        assertSame(first, second);
+        assertEquals(1, pathfinder.getRouteCache().getHitCount());
+        pathfinder.invalidateRoutes();
+        pathfinder.findPathAcrossFloors(graph, 1, 0, 0, 1, 0, 2);
+        assertEquals(1, pathfinder.getRouteCache().getHitCount());
+    }
+}
@@ -0,0 +1,109 @@
+package com.vern.vernaduwaste;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RoutingExecutorTest {
+
+    private static final RoutingExecutor.RouteRequest REQUEST = new RoutingExecutor.RouteRequest(1, 0, 0, 1, 1, 1);
+
+    private static final RoutingExecutor.Listener LISTENER = new RoutingExecutor.Listener() {
+        @Override
+        public boolean isCurrent(RoutingExecutor.RouteRequest request) {
+            return true;
+        }
+
+        @Override
+        public void onRouteReady(RoutingExecutor.RouteRequest request, AStarPathfinding.PathResult result) {
+        }
+    };
+
+    private static AStarPathfinding.PathResult noRoute() {
+        return new AStarPathfinding.PathResult(null, 0, null, null);
+    }
+
+    @Test
+    public void newerRequestCancelsTheOneInFlight() throws Exception {
+        RoutingExecutor executor = new RoutingExecutor();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<AStarPathfinding.PathResult> first = executor.submit("view", REQUEST, () -> {
+            running.countDown();
+            release.await();
+            return noRoute();
+        }, LISTENER);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<AStarPathfinding.PathResult> second = executor.submit("view", REQUEST, RoutingExecutorTest::noRoute, LISTENER);
+        assertTrue(first.isCancelled());
+        release.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    // A superseded multi-floor search stops at its next interrupt check instead of
+    // holding the routing thread until it finishes.
+    @Test
+    public void supersededSearchIsInterrupted() throws Exception {
+        RoutingExecutor executor = new RoutingExecutor();
+        MultiFloorSearch search = new MultiFloorSearch(new MultiFloorGraph(Map.of(1, new int[40][40])));
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicBoolean stopped = new AtomicBoolean();
+        executor.submit("view", REQUEST, () -> {
+            running.countDown();
+            try {
+                while (true) {
+                    search.findPath(1, 0, 0, 1, 39, 39);
+                }
+            } catch (CancellationException e) {
+                stopped.set(true);
+                throw e;
+            }
+        }, LISTENER);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        executor.submit("view", REQUEST, RoutingExecutorTest::noRoute, LISTENER).get(5, TimeUnit.SECONDS);
+        assertTrue(stopped.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void cancelledRequestNeverRuns() throws Exception {
+        RoutingExecutor executor = new RoutingExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        executor.submit("busy", REQUEST, () -> {
+            release.await();
+            return noRoute();
+        }, LISTENER);
+        Future<AStarPathfinding.PathResult> queued = executor.submit("view", REQUEST, () -> {
+            ran.set(true);
+            return noRoute();
+        }, LISTENER);
+        executor.cancel("view");
+        release.countDown();
+        executor.submit("other", REQUEST, RoutingExecutorTest::noRoute, LISTENER).get(5, TimeUnit.SECONDS);
+        assertTrue(queued.isCancelled());
+        assertFalse(ran.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void requestsForOtherKeysAreLeftAlone() throws Exception {
+        RoutingExecutor executor = new RoutingExecutor();
+        Future<AStarPathfinding.PathResult> first = executor.submit("a", REQUEST, RoutingExecutorTest::noRoute, LISTENER);
+        Future<AStarPathfinding.PathResult> second = executor.submit("b", REQUEST, RoutingExecutorTest::noRoute, LISTENER);
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertFalse(first.isCancelled());
+        assertFalse(second.isCancelled());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,60 @@
+package com.vern.vernaduwaste.benchmark;
+
+import com.vern.vernaduwaste.AStarPathfinding;
+import com.vern.vernaduwaste.FloorModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Corner-to-corner AStarPathfinding.aStar on generated grids, per engine.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AStarBenchmark {
+
+    @Param({"32", "128", "512", "1024"})
+    public int size;
+
+    @Param({"0.1", "0.25", "0.4"})
+    public double obstacleDensity;
+
+    @Param({"CLASSIC", "INDEXED", "JPS", "HPA", "ALT"})
+    public String engine;
+
+    private AStarPathfinding pathfinder;
+    private int[][] grid;
+    private FloorModel model;
+
+    @Setup
+    public void setUp() {
+        grid = GridFixtures.generate(size, obstacleDensity, 42L);
+        model = FloorModel.compile(1, grid);
+        pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.valueOf(engine));
+        // Engines with precomputation (HPA, ALT) build it here, not inside the measurement.
+        pathfinder.aStar(grid, 0, 0, size - 1, size - 1);
+        pathfinder.aStar(model, 0, 0, size - 1, size - 1);
+    }
+
+    @Benchmark
+    public AStarPathfinding.AStarResult cornerToCorner(ExploredCounter counter) {
+        AStarPathfinding.AStarResult result = pathfinder.aStar(grid, 0, 0, size - 1, size - 1);
+        counter.exploredCount += result.exploredCount;
+        return result;
+    }
+
+    @Benchmark
+    public AStarPathfinding.AStarResult cornerToCornerFloorModel(ExploredCounter counter) {
+        AStarPathfinding.AStarResult result = pathfinder.aStar(model, 0, 0, size - 1, size - 1);
+        counter.exploredCount += result.exploredCount;
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.vern.vernaduwaste.benchmark;
+
+import com.vern.vernaduwaste.BatchRouter;
+import com.vern.vernaduwaste.MultiFloorGraph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// A fixed batch of random multi-floor cost queries per pool size, to check that
+// BatchRouter scales with the number of worker threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchRouterBenchmark {
+
+    private static final int FLOORS = 3;
+    private static final int QUERIES = 2000;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"128", "512"})
+    public int size;
+
+    private ForkJoinPool pool;
+    private BatchRouter router;
+    private List<BatchRouter.RouteQuery> queries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7L);
+        Map<Integer, int[][]> floors = new HashMap<>();
+        for (int floor = 1; floor <= FLOORS; floor++) {
+            floors.put(floor, GridFixtures.generate(size, 0.25, floor));
+        }
+        // Stairs at the same cells on every floor so queries can change floors.
+        for (int i = 0; i < Math.max(4, size / 8); i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            for (int[][] grid : floors.values()) {
+                grid[y][x] = 2;
+            }
+        }
+        pool = new ForkJoinPool(parallelism);
+        router = new BatchRouter(new MultiFloorGraph(floors), pool);
+        queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(new BatchRouter.RouteQuery(
+                    1 + random.nextInt(FLOORS), random.nextInt(size), random.nextInt(size),
+                    1 + random.nextInt(FLOORS), random.nextInt(size), random.nextInt(size)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public float[] costAll() {
+        return router.costAll(queries);
+    }
+}
@@ -0,0 +1,127 @@
+package com.vern.vernaduwaste.benchmark;
+
+import com.vern.vernaduwaste.AStarPathfinding;
+import com.vern.vernaduwaste.CellRectangles;
+import com.vern.vernaduwaste.FloorMapCodec;
+import com.vern.vernaduwaste.FloorMapParser;
+import com.vern.vernaduwaste.FloorModel;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The shipped floor1..3 maps: JSON parsing, JSON versus binary loading into FloorModels,
+// stair extraction, merging the cells into draw rectangles and the two-segment
+// findPathAcrossFloorsSimple route from a ground floor corner to the third floor.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BundledFloorsBenchmark {
+
+    @Param({"INDEXED", "CLASSIC", "ALT"})
+    public String engine;
+
+    private AStarPathfinding pathfinder;
+    private Map<Integer, int[][]> floors;
+    private String[] floorJson;
+    private ByteBuffer[] floorBinary;
+    private byte[][] floorCells;
+    private int[] start;
+    private int[] goal;
+
+    @Setup
+    public void setUp() {
+        pathfinder = new AStarPathfinding();
+        pathfinder.setEngine(AStarPathfinding.Engine.valueOf(engine));
+        floors = GridFixtures.loadBundledFloors();
+        floorJson = new String[GridFixtures.BUNDLED_FLOOR_COUNT];
+        floorBinary = new ByteBuffer[GridFixtures.BUNDLED_FLOOR_COUNT];
+        for (int floor = 1; floor <= GridFixtures.BUNDLED_FLOOR_COUNT; floor++) {
+            floorJson[floor - 1] = GridFixtures.readBundledFloorJson(floor);
+            floorBinary[floor - 1] = GridFixtures.encodeBundledFloorBinary(floor);
+        }
+        floorCells = new byte[GridFixtures.BUNDLED_FLOOR_COUNT][];
+        for (int floor = 1; floor <= GridFixtures.BUNDLED_FLOOR_COUNT; floor++) {
+            int[][] grid = floors.get(floor);
+            byte[] cells = new byte[grid.length * grid[0].length];
+            for (int y = 0; y < grid.length; y++) {
+                for (int x = 0; x < grid[y].length; x++) {
+                    cells[y * grid[y].length + x] = (byte) grid[y][x];
+                }
+            }
+            floorCells[floor - 1] = cells;
+        }
+        start = firstWalkable(floors.get(1), false);
+        goal = firstWalkable(floors.get(3), true);
+    }
+
+    @Benchmark
+    public AStarPathfinding.PathResult findPathAcrossFloorsSimple(ExploredCounter counter) {
+        AStarPathfinding.PathResult result = pathfinder.findPathAcrossFloorsSimple(floors,
+                1, start[0], start[1], 3, goal[0], goal[1]);
+        counter.exploredCount += result.exploredCount;
+        return result;
+    }
+
+    @Benchmark
+    public void getStairsFromGrid(Blackhole blackhole) {
+        for (int floor = 1; floor <= GridFixtures.BUNDLED_FLOOR_COUNT; floor++) {
+            List<int[]> stairs = pathfinder.getStairsFromGrid(floors.get(floor));
+            blackhole.consume(stairs);
+        }
+    }
+
+    @Benchmark
+    public void parseFloorJson(Blackhole blackhole) throws JSONException {
+        for (String json : floorJson) {
+            blackhole.consume(FloorMapParser.parse(json));
+        }
+    }
+
+    @Benchmark
+    public void buildCellRectangles(Blackhole blackhole) {
+        for (int floor = 1; floor <= GridFixtures.BUNDLED_FLOOR_COUNT; floor++) {
+            int[][] grid = floors.get(floor);
+            blackhole.consume(CellRectangles.build(floorCells[floor - 1], grid[0].length, grid.length));
+        }
+    }
+
+    @Benchmark
+    public void loadFloorModelFromJson(Blackhole blackhole) throws JSONException {
+        for (int floor = 1; floor <= GridFixtures.BUNDLED_FLOOR_COUNT; floor++) {
+            blackhole.consume(FloorModel.compile(floor, FloorMapParser.parse(floorJson[floor - 1])));
+        }
+    }
+
+    @Benchmark
+    public void loadFloorModelFromBinary(Blackhole blackhole) throws IOException {
+        for (ByteBuffer binary : floorBinary) {
+            blackhole.consume(FloorMapCodec.read(binary));
+        }
+    }
+
+    // Walkable (0) cell scanning from the first row, or from the last row when fromEnd is set.
+    private static int[] firstWalkable(int[][] grid, boolean fromEnd) {
+        for (int i = 0; i < grid.length; i++) {
+            int y = fromEnd ? grid.length - 1 - i : i;
+            for (int j = 0; j < grid[y].length; j++) {
+                int x = fromEnd ? grid[y].length - 1 - j : j;
+                if (grid[y][x] == 0) return new int[]{x, y};
+            }
+        }
+        throw new IllegalStateException("Floor has no walkable cell");
+    }
+}
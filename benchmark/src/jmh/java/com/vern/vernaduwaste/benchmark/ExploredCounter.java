@@ -0,0 +1,21 @@
+package com.vern.vernaduwaste.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Reports the search effort next to throughput: exploredCount is summed over every
+// invocation in an iteration, so divide by the op count for expansions per search.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class ExploredCounter {
+
+    public long exploredCount;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        exploredCount = 0;
+    }
+}
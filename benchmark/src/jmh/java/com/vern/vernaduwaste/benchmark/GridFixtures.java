@@ -0,0 +1,94 @@
+package com.vern.vernaduwaste.benchmark;
+
+import com.vern.vernaduwaste.FloorMapCodec;
+import com.vern.vernaduwaste.FloorMapParser;
+import com.vern.vernaduwaste.FloorModel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Inputs shared by the benchmarks: the bundled floor maps and seeded random grids.
+final class GridFixtures {
+
+    static final int BUNDLED_FLOOR_COUNT = 3;
+
+    private GridFixtures() {
+    }
+
+    static String readBundledFloorJson(int floor) {
+        return new String(readResource("/floor" + floor + ".json"), StandardCharsets.UTF_8);
+    }
+
+    // The binary floor map in a direct buffer, as the app reads it from a mapped asset. The
+    // app build generates the .bin assets, so here they are encoded from the JSON maps.
+    static ByteBuffer encodeBundledFloorBinary(int floor) {
+        try {
+            FloorModel model = FloorModel.compile(floor, FloorMapParser.parse(readBundledFloorJson(floor)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FloorMapCodec.write(model, out);
+            byte[] bytes = out.toByteArray();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (org.json.JSONException e) {
+            throw new IllegalStateException("Invalid bundled floor " + floor, e);
+        }
+    }
+
+    private static byte[] readResource(String name) {
+        try (InputStream is = GridFixtures.class.getResourceAsStream(name)) {
+            if (is == null) throw new IllegalStateException("Missing benchmark resource " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Map<Integer, int[][]> loadBundledFloors() {
+        Map<Integer, int[][]> floors = new HashMap<>();
+        for (int floor = 1; floor <= BUNDLED_FLOOR_COUNT; floor++) {
+            try {
+                floors.put(floor, FloorMapParser.parse(readBundledFloorJson(floor)));
+            } catch (org.json.JSONException e) {
+                throw new IllegalStateException("Invalid bundled floor " + floor, e);
+            }
+        }
+        return floors;
+    }
+
+    // size x size grid where each cell is inaccessible (1) with the given probability.
+    // Row 0 and the last column are kept walkable so (0, 0) always reaches the far corner,
+    // and a handful of stair cells (2) are scattered in for the stair scans.
+    static int[][] generate(int size, double obstacleDensity, long seed) {
+        Random random = new Random(seed);
+        int[][] grid = new int[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid[y][x] = random.nextDouble() < obstacleDensity ? 1 : 0;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            grid[0][i] = 0;
+            grid[i][size - 1] = 0;
+        }
+        for (int i = 0; i < Math.max(4, size / 8); i++) {
+            grid[random.nextInt(size)][random.nextInt(size)] = 2;
+        }
+        return grid;
+    }
+}
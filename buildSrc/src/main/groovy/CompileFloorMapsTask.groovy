@@ -0,0 +1,106 @@
+import com.vern.vernaduwaste.FloorMapCodec
+import com.vern.vernaduwaste.FloorModel
+import groovy.json.JsonSlurper
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.provider.SetProperty
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+
+// Validates the floorN.json maps and compiles each one to the binary format read by
+// FloorMapCodec. The model is built with FloorModel.compile() and written with
+// FloorMapCodec.write(), so the stair table, component labels and layout are the ones the
+// app would compute itself. Rows must be rectangular and every cell a known code
+// (0 walkable, 1 inaccessible, 2 stairs, 3 rooms). A stair with no stair at the same cell
+// on an adjacent floor fails the build too, unless it is listed in unlinkedStairs.
+abstract class CompileFloorMapsTask extends DefaultTask {
+
+    static final List<Integer> CELL_CODES = [FloorModel.WALKABLE, FloorModel.INACCESSIBLE,
+                                             FloorModel.STAIRS, FloorModel.ROOM].collect { it as int }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    abstract ConfigurableFileCollection getSources()
+
+    // Stairs that are meant to lead off the mapped floors, as "floorN.json (x, y)".
+    @Input
+    abstract SetProperty<String> getUnlinkedStairs()
+
+    @OutputDirectory
+    abstract DirectoryProperty getOutputDir()
+
+    @TaskAction
+    void compile() {
+        File out = outputDir.get().asFile
+        out.deleteDir()
+        out.mkdirs()
+        Map<Integer, int[][]> floors = new TreeMap<>()
+        sources.files.each { File file ->
+            def match = file.name =~ /^floor(\d+)\.json$/
+            if (!match.matches()) return
+            floors[match.group(1) as int] = validate(file)
+        }
+        checkStairs(floors, unlinkedStairs.get())
+        floors.each { int floor, int[][] grid ->
+            new File(out, "floor${floor}${FloorMapCodec.EXTENSION}").withOutputStream { stream ->
+                FloorMapCodec.write(FloorModel.compile(floor, grid), stream)
+            }
+        }
+        logger.info("Compiled ${floors.size()} floor maps to ${out}")
+    }
+
+    static int[][] validate(File file) {
+        def rows = new JsonSlurper().parse(file)
+        if (!(rows instanceof List) || rows.isEmpty()) {
+            throw new GradleException("${file.name}: expected a non-empty array of rows")
+        }
+        int width = -1
+        int[][] grid = new int[rows.size()][]
+        rows.eachWithIndex { row, int y ->
+            if (!(row instanceof List)) throw new GradleException("${file.name}: row ${y} is not an array")
+            if (width < 0) width = row.size()
+            if (row.size() != width) {
+                throw new GradleException("${file.name}: row ${y} has ${row.size()} cells, expected ${width}")
+            }
+            grid[y] = new int[width]
+            row.eachWithIndex { cell, int x ->
+                if (!(cell instanceof Integer) || !CELL_CODES.contains(cell)) {
+                    throw new GradleException("${file.name}: unknown cell code ${cell} at (${x}, ${y})")
+                }
+                grid[y][x] = cell as int
+            }
+        }
+        return grid
+    }
+
+    // MultiFloorGraph only links a stair to the stair at the same (x, y) one floor up or
+    // down, so any other stair is a dead end in every route.
+    static void checkStairs(Map<Integer, int[][]> floors, Set<String> allowed) {
+        List<String> unlinked = []
+        floors.each { int floor, int[][] grid ->
+            int[][] below = floors[floor - 1]
+            int[][] above = floors[floor + 1]
+            for (int y = 0; y < grid.length; y++) {
+                for (int x = 0; x < grid[y].length; x++) {
+                    if (grid[y][x] != FloorModel.STAIRS || isStair(below, x, y) || isStair(above, x, y)) continue
+                    String stair = "floor${floor}.json (${x}, ${y})"
+                    if (!allowed.contains(stair)) unlinked << stair
+                }
+            }
+        }
+        if (!unlinked.isEmpty()) {
+            throw new GradleException("Stairs with no stair at the same cell on an adjacent floor: "
+                    + unlinked.join(', '))
+        }
+    }
+
+    static boolean isStair(int[][] grid, int x, int y) {
+        return grid != null && y < grid.length && x < grid[y].length && grid[y][x] == FloorModel.STAIRS
+    }
+}
@@ -0,0 +1,90 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+import com.vern.vernaduwaste.FloorMapCodec;
+import com.vern.vernaduwaste.FloorModel;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+public class CompileFloorMapsTaskTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // The generated assets decode with FloorMapCodec.read() to the JSON cells, with the
+    // stairs and components FloorModel.compile() finds in them.
+    @Test
+    public void assetsDecodeToTheJsonMaps() throws IOException {
+        int[][] first = {{0, 1, 2, 0}, {3, 1, 0, 0}, {0, 1, 1, 1}};
+        int[][] second = {{1, 1, 2, 3}, {0, 0, 0, 3}, {0, 1, 0, 0}};
+        CompileFloorMapsTask task = newTask("[[0,1,2,0],[3,1,0,0],[0,1,1,1]]", "[[1,1,2,3],[0,0,0,3],[0,1,0,0]]");
+        task.compile();
+        assertDecodes(1, first, task);
+        assertDecodes(2, second, task);
+    }
+
+    @Test
+    public void rejectsStairWithoutLandingOnAdjacentFloor() throws IOException {
+        CompileFloorMapsTask task = newTask("[[2,0],[0,0]]", "[[0,0],[0,2]]");
+        assertThrows(GradleException.class, task::compile);
+        assertFalse(new File(task.getOutputDir().get().getAsFile(), "floor1.bin").exists());
+    }
+
+    @Test
+    public void listedUnlinkedStairsCompile() throws IOException {
+        CompileFloorMapsTask task = newTask("[[2,0],[0,0]]", "[[0,0],[0,2]]");
+        task.getUnlinkedStairs().set(Set.of("floor1.json (0, 0)", "floor2.json (1, 1)"));
+        task.compile();
+        assertDecodes(1, new int[][]{{2, 0}, {0, 0}}, task);
+    }
+
+    @Test
+    public void rejectsMalformedMaps() throws IOException {
+        assertThrows(GradleException.class, newTask("[[0,0],[0]]")::compile);
+        assertThrows(GradleException.class, newTask("[[0,4],[0,0]]")::compile);
+        assertThrows(GradleException.class, newTask("[]")::compile);
+    }
+
+    private CompileFloorMapsTask newTask(String... floors) throws IOException {
+        File assets = folder.newFolder();
+        for (int i = 0; i < floors.length; i++) {
+            Files.write(new File(assets, "floor" + (i + 1) + ".json").toPath(),
+                    floors[i].getBytes(StandardCharsets.UTF_8));
+        }
+        Project project = ProjectBuilder.builder().withProjectDir(folder.newFolder()).build();
+        CompileFloorMapsTask task = project.getTasks().register("compileFloorMaps", CompileFloorMapsTask.class).get();
+        task.getSources().from(project.fileTree(assets));
+        task.getOutputDir().set(folder.newFolder());
+        return task;
+    }
+
+    private static void assertDecodes(int floor, int[][] grid, CompileFloorMapsTask task) throws IOException {
+        File asset = new File(task.getOutputDir().get().getAsFile(), "floor" + floor + FloorMapCodec.EXTENSION);
+        FloorModel read = FloorMapCodec.read(ByteBuffer.wrap(Files.readAllBytes(asset.toPath())));
+        FloorModel expected = FloorModel.compile(floor, grid);
+        assertEquals(floor, read.getFloor());
+        assertArrayEquals(grid, read.toGrid());
+        assertEquals(expected.getStairs().size(), read.getStairs().size());
+        for (int i = 0; i < expected.getStairs().size(); i++) {
+            assertArrayEquals(expected.getStairs().get(i), read.getStairs().get(i));
+        }
+        assertEquals(expected.getComponentCount(), read.getComponentCount());
+        for (int index = 0; index < grid.length * grid[0].length; index++) {
+            assertEquals(expected.getComponentIndex(index), read.getComponentIndex(index));
+        }
+    }
+}